@@ -0,0 +1,47 @@
+package com.mobiquity.benchmark;
+
+/**
+ * This class applies the benchmark parameters to the solver configuration.
+ * The configuration is read once, when the solver classes are loaded, so it has to be applied as system properties
+ * at the start of each trial, before any of them is used. JMH runs every parameter combination in its own fork.
+ */
+public class BenchmarkConfig {
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private BenchmarkConfig() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Overrides the configuration so that the generated workload passes validation.
+     *
+     * @param weightScaleFactor The weight scale factor of the dynamic programming table.
+     * @param capacity The maximum weight of the packages in the workload.
+     * @param itemCount The number of items per package in the workload.
+     */
+    public static void apply(int weightScaleFactor, int capacity, int itemCount) {
+        System.setProperty("WEIGHT_SCALE_FACTOR", Integer.toString(weightScaleFactor));
+        System.setProperty("MAX_TOTAL_WEIGHT", Integer.toString(Math.max(100, capacity)));
+        System.setProperty("MAX_ITEM_COUNT", Integer.toString(Math.max(15, itemCount)));
+    }
+
+    /**
+     * Selects the solver mode.
+     *
+     * @param solverMode The value of the SOLVER_MODE property.
+     */
+    public static void applySolverMode(String solverMode) {
+        System.setProperty("SOLVER_MODE", solverMode);
+    }
+
+    /**
+     * Sets the number of solutions the packer caches, where 0 disables the cache.
+     *
+     * @param solutionCacheSize The value of the SOLUTION_CACHE_SIZE property.
+     */
+    public static void applySolutionCacheSize(int solutionCacheSize) {
+        System.setProperty("SOLUTION_CACHE_SIZE", Integer.toString(solutionCacheSize));
+    }
+}
@@ -0,0 +1,36 @@
+package com.mobiquity.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. It accepts the usual JMH command line options and always adds the GC profiler,
+ * so that every run reports the allocation rate next to throughput and latency percentiles.
+ */
+public class BenchmarkMain {
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private BenchmarkMain() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args JMH command line options, for example a benchmark name pattern or {@code -p itemCount=15}.
+     * @throws RunnerException If a benchmark fails.
+     * @throws CommandLineOptionException If the options are not valid.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
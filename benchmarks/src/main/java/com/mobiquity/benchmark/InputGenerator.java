@@ -0,0 +1,109 @@
+package com.mobiquity.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * This class generates synthetic test case lines in the input file format, for example
+ * {@code 81 : (1,53.38,€45) (2,88.62,€98)}.
+ * It can also be run on its own to write a large input file:
+ * {@code java -cp benchmarks.jar com.mobiquity.benchmark.InputGenerator <file> <lines> <items> <capacity> <decimals> [seed]}.
+ */
+public class InputGenerator {
+
+    private static final int MAX_ITEM_WEIGHT = 100;
+    private static final int MAX_ITEM_COST = 100;
+
+    private final Random random;
+
+    /**
+     * Constructs a generator. The same seed always generates the same lines.
+     *
+     * @param seed The seed of the random number generator.
+     */
+    public InputGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates a test case line.
+     *
+     * @param itemCount The number of items in the line.
+     * @param capacity The maximum weight of the package.
+     * @param weightDecimals The number of decimals of the item weights.
+     * @return The test case line, without a line terminator.
+     */
+    public String nextLine(int itemCount, int capacity, int weightDecimals) {
+        int weightScale = (int) Math.pow(10, weightDecimals);
+        StringBuilder line = new StringBuilder().append(capacity).append(" :");
+        for (int i = 1; i <= itemCount; i++) {
+            // Weights up to the item limit, but not heavier than the package, so the lines pass validation
+            int maxWeight = Math.min(MAX_ITEM_WEIGHT, capacity) * weightScale;
+            int weight = 1 + random.nextInt(maxWeight);
+            line.append(" (").append(i).append(',').append(weight / weightScale);
+            if (weightDecimals > 0) {
+                String decimals = Integer.toString(weight % weightScale);
+                line.append('.').append("0".repeat(weightDecimals - decimals.length())).append(decimals);
+            }
+            line.append(",€").append(1 + random.nextInt(MAX_ITEM_COST)).append(')');
+        }
+        return line.toString();
+    }
+
+    /**
+     * Generates several test case lines.
+     *
+     * @param lineCount The number of lines.
+     * @param itemCount The number of items in each line.
+     * @param capacity The maximum weight of each package.
+     * @param weightDecimals The number of decimals of the item weights.
+     * @return The test case lines.
+     */
+    public String[] nextLines(int lineCount, int itemCount, int capacity, int weightDecimals) {
+        String[] lines = new String[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            lines[i] = nextLine(itemCount, capacity, weightDecimals);
+        }
+        return lines;
+    }
+
+    /**
+     * Writes generated test case lines to a file, one per line.
+     *
+     * @param file The file to write.
+     * @param lineCount The number of lines.
+     * @param itemCount The number of items in each line.
+     * @param capacity The maximum weight of each package.
+     * @param weightDecimals The number of decimals of the item weights.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeFile(Path file, long lineCount, int itemCount, int capacity, int weightDecimals) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < lineCount; i++) {
+                writer.write(nextLine(itemCount, capacity, weightDecimals));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes a generated input file.
+     *
+     * @param args The file, the number of lines, items per line, capacity, weight decimals and an optional seed.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: InputGenerator <file> <lines> <items> <capacity> <decimals> [seed]");
+            System.exit(1);
+        }
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42;
+        new InputGenerator(seed).writeFile(Paths.get(args[0]), Long.parseLong(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+    }
+}
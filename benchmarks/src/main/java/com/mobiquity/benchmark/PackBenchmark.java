@@ -0,0 +1,79 @@
+package com.mobiquity.benchmark;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks packing a whole generated input file, end to end: reading, parsing, validating, solving and formatting.
+ * The file is packed again in every invocation, so with the solution cache enabled and large enough for all lines,
+ * every line after the first pass is a cache hit.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackBenchmark {
+
+    @Param({"1000"})
+    private int lineCount;
+
+    @Param({"15"})
+    private int itemCount;
+
+    @Param({"100"})
+    private int capacity;
+
+    @Param({"0", "1024"})
+    private int solutionCacheSize;
+
+    private Path inputFile;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkConfig.apply(100, capacity, itemCount);
+        BenchmarkConfig.applySolutionCacheSize(solutionCacheSize);
+        inputFile = Files.createTempFile("knapsack-benchmark", ".txt");
+        new InputGenerator(42).writeFile(inputFile, lineCount, itemCount, capacity, 2);
+        // A pool of its own, as the common pool falls back to a thread per task on machines with up to two processors
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdown();
+        Files.deleteIfExists(inputFile);
+    }
+
+    @Benchmark
+    public String pack() throws APIException {
+        return Packer.pack(inputFile.toString());
+    }
+
+    @Benchmark
+    public String packParallel() throws APIException {
+        return Packer.pack(inputFile.toString(), executor);
+    }
+
+    @Benchmark
+    public String packBalanced() throws APIException {
+        return Packer.packBalanced(inputFile.toString(), ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public void packStreaming() throws APIException {
+        Packer.pack(inputFile.toString(), Writer.nullWriter());
+    }
+}
@@ -0,0 +1,68 @@
+package com.mobiquity.benchmark;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.exception.MalformedInputException;
+import com.mobiquity.file.BinaryFormat;
+import com.mobiquity.file.FileReader;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.KnapsackProblemInstance;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks parsing a single test case, from a text line into a list of items or into arrays, or from a binary record.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    private static final int LINE_COUNT = 1024;
+
+    @Param({"1", "5", "15"})
+    private int itemCount;
+
+    @Param({"0", "2"})
+    private int weightDecimals;
+
+    private String[] lines;
+    // Every line as a binary file of its own, header included
+    private ByteBuffer[] records;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws APIException {
+        BenchmarkConfig.apply(100, 100, itemCount);
+        lines = new InputGenerator(42).nextLines(LINE_COUNT, itemCount, 100, weightDecimals);
+        records = new ByteBuffer[LINE_COUNT];
+        for (int i = 0; i < LINE_COUNT; i++) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            BinaryFormat.TestCaseWriter writer = new BinaryFormat.TestCaseWriter(output, BinaryFormat.DEFAULT_WEIGHT_SCALE);
+            writer.write(FileReader.parseTestCase(lines[i]));
+            writer.flush();
+            records[i] = ByteBuffer.wrap(output.toByteArray());
+        }
+    }
+
+    @Benchmark
+    public KnapsackProblemInstance parseTestCase() throws MalformedInputException {
+        return FileReader.parseTestCase(lines[next++ & (LINE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public ArrayKnapsackProblemInstance parseValidArrayTestCase() throws APIException {
+        return FileReader.parseValidArrayTestCase(lines[next++ & (LINE_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public void parseBinaryTestCase(Blackhole blackhole) throws APIException {
+        BinaryFormat.forEachTestCase(records[next++ & (LINE_COUNT - 1)], blackhole::consume);
+    }
+}
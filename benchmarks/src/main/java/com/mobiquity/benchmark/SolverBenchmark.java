@@ -0,0 +1,58 @@
+package com.mobiquity.benchmark;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.file.FileReader;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.packer.KnapsackSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks solving a single test case, across item counts, capacities, weight scale factors and weight precision.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+// The vector solver only uses the Vector API if the module is added
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    private static final int LINE_COUNT = 256;
+
+    @Param({"5", "15"})
+    private int itemCount;
+
+    @Param({"10", "100"})
+    private int capacity;
+
+    @Param({"1", "10", "100"})
+    private int weightScaleFactor;
+
+    @Param({"0", "2"})
+    private int weightDecimals;
+
+    @Param({"TABLE", "ROLLING", "MEET_IN_THE_MIDDLE", "BRANCH_AND_BOUND", "HIRSCHBERG", "PARETO", "VECTOR", "AUTO"})
+    private String solverMode;
+
+    private KnapsackProblemInstance[] testCases;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws APIException {
+        BenchmarkConfig.apply(weightScaleFactor, capacity, itemCount);
+        BenchmarkConfig.applySolverMode(solverMode);
+        String[] lines = new InputGenerator(42).nextLines(LINE_COUNT, itemCount, capacity, weightDecimals);
+        testCases = new KnapsackProblemInstance[LINE_COUNT];
+        for (int i = 0; i < LINE_COUNT; i++) {
+            testCases[i] = FileReader.parseTestCase(lines[i]);
+        }
+    }
+
+    @Benchmark
+    public String solve() {
+        return KnapsackSolver.solveKnapsackProblem(testCases[next++ & (LINE_COUNT - 1)]);
+    }
+}
@@ -0,0 +1,46 @@
+package com.mobiquity.benchmark;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.file.FileReader;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.validation.ValidationService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks validating a single parsed test case.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidationBenchmark {
+
+    private static final int LINE_COUNT = 1024;
+
+    @Param({"1", "5", "15"})
+    private int itemCount;
+
+    private KnapsackProblemInstance[] testCases;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws APIException {
+        BenchmarkConfig.apply(100, 100, itemCount);
+        String[] lines = new InputGenerator(42).nextLines(LINE_COUNT, itemCount, 100, 2);
+        testCases = new KnapsackProblemInstance[LINE_COUNT];
+        for (int i = 0; i < LINE_COUNT; i++) {
+            testCases[i] = FileReader.parseTestCase(lines[i]);
+        }
+    }
+
+    @Benchmark
+    public KnapsackProblemInstance validate() throws APIException {
+        KnapsackProblemInstance testCase = testCases[next++ & (LINE_COUNT - 1)];
+        ValidationService.validateKnapsackProblemInstance(testCase);
+        return testCase;
+    }
+}
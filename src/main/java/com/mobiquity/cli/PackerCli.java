@@ -0,0 +1,188 @@
+package com.mobiquity.cli;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The PackerCli class packs test cases from standard input to standard output, so that the packer can be used in a
+ * Unix pipeline without temporary files:
+ * <pre>
+ * java -cp knapsack.jar com.mobiquity.cli.PackerCli --batch-size 64 --parallelism 4 &lt; input &gt; output
+ * </pre>
+ * Every line is parsed exactly as a line of an input file. The solutions are written in input order, one per line,
+ * and flushed after every batch of {@code --batch-size} solutions, so a downstream command sees them as they complete.
+ * With {@code --parallelism} above 1, up to {@code --batch-size} lines are solved at the same time on that many
+ * threads. Only those lines are held in memory, however long the input is.
+ * <p>
+ * If a line fails, the solutions of the lines before it are written, the error message is printed to standard error
+ * and the exit status is 1. Invalid arguments exit with status 2.
+ */
+public class PackerCli {
+    private static final int DEFAULT_BATCH_SIZE = 64;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private PackerCli() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Packs the test cases from standard input to standard output and exits with the status of {@link #run}.
+     *
+     * @param args The options: {@code --batch-size N} and {@code --parallelism N}.
+     */
+    public static void main(String[] args) {
+        Reader input = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+        System.exit(run(args, input, output, System.err));
+    }
+
+    /**
+     * Packs the test cases from a reader to a writer.
+     *
+     * @param args The options: {@code --batch-size N} (default 64) and {@code --parallelism N}
+     *             (default one thread per processor).
+     * @param input The reader to read the test cases from, one per line.
+     * @param output The writer to write the solutions to, one per line.
+     * @param error The stream to print errors to.
+     * @return 0 on success, 1 if a test case fails and 2 if the arguments are invalid.
+     */
+    public static int run(String[] args, Reader input, Writer output, PrintStream error) {
+        int batchSize = DEFAULT_BATCH_SIZE;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--batch-size" -> batchSize = parsePositive(args, ++i);
+                    case "--parallelism" -> parallelism = parsePositive(args, ++i);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            error.println(e.getMessage());
+            error.println("Usage: PackerCli [--batch-size N] [--parallelism N]");
+            return 2;
+        }
+
+        Writer batchOutput = new BatchFlushingWriter(output, batchSize);
+        ExecutorService executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        try {
+            if (executor == null) {
+                Packer.pack(input, batchOutput);
+            } else {
+                Packer.pack(input, batchOutput, executor, batchSize);
+            }
+            return 0;
+        } catch (APIException e) {
+            flushQuietly(output);
+            error.println(e.getMessage());
+            return 1;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parses the value of an option as a positive integer.
+     *
+     * @param args The arguments.
+     * @param index The position of the value.
+     * @return The value.
+     * @throws IllegalArgumentException If the value is missing, not a number or not positive.
+     */
+    private static int parsePositive(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        int value;
+        try {
+            value = Integer.parseInt(args[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a number for " + args[index - 1] + ": " + args[index]);
+        }
+        if (value < 1) {
+            throw new IllegalArgumentException(args[index - 1] + " must be at least 1");
+        }
+        return value;
+    }
+
+    /**
+     * Flushes the solutions written so far, ignoring a failure because an error is being reported already.
+     *
+     * @param output The writer to flush.
+     */
+    private static void flushQuietly(Writer output) {
+        try {
+            output.flush();
+        } catch (IOException e) {
+            // The original error is the one worth reporting
+        }
+    }
+
+    /**
+     * A writer that flushes after every batch of lines.
+     */
+    private static final class BatchFlushingWriter extends FilterWriter {
+        private final int batchSize;
+        private int pendingLines;
+
+        private BatchFlushingWriter(Writer output, int batchSize) {
+            super(output);
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            super.write(c);
+            if (c == '\n') {
+                endLine();
+            }
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            super.write(chars, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                if (chars[i] == '\n') {
+                    endLine();
+                }
+            }
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            super.write(string, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                if (string.charAt(i) == '\n') {
+                    endLine();
+                }
+            }
+        }
+
+        private void endLine() throws IOException {
+            if (++pendingLines == batchSize) {
+                pendingLines = 0;
+                flush();
+            }
+        }
+    }
+}
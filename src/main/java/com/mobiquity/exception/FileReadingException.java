@@ -14,4 +14,13 @@ public class FileReadingException extends APIException {
     public FileReadingException(String message, Exception e) {
         super(message, e);
     }
+
+    /**
+     * Constructs a new FileReadingException with the specified detail message.
+     *
+     * @param message The detail message (which is saved for later retrieval by the Throwable.getMessage() method).
+     */
+    public FileReadingException(String message) {
+        super(message);
+    }
 }
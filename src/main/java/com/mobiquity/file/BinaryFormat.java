@@ -0,0 +1,567 @@
+package com.mobiquity.file;
+
+import com.mobiquity.exception.*;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.Item;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.util.FixedPoint;
+import com.mobiquity.validation.TestCaseValidator;
+import com.mobiquity.validation.ValidationService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * This class reads and writes the binary format for batches of test cases and their solutions, which producers can
+ * use instead of the text format to skip formatting and parsing text altogether.
+ * <p>
+ * All numbers are big-endian 32-bit signed integers, except in the header. A file starts with a header:
+ * <ul>
+ *     <li>the magic bytes {@code KNAP},</li>
+ *     <li>the format version as a 16-bit integer, currently {@value #VERSION},</li>
+ *     <li>the content type as a 16-bit integer: {@value #TEST_CASES} for test cases, {@value #SOLUTIONS} for solutions,</li>
+ *     <li>for test cases only, the weight scale: weights are stored as fixed-point integers in units of 1 / scale.</li>
+ * </ul>
+ * The header is followed by records, each prefixed with the number of bytes that follow in it:
+ * <ul>
+ *     <li>a test case record holds the maximum weight, the number of items and, for every item, its index, its
+ *     fixed-point weight and its cost,</li>
+ *     <li>a solution record holds the number of chosen items and their indices, in increasing order. A solution
+ *     with no items is written as "-" in the text format.</li>
+ * </ul>
+ * Records are read straight from a {@link ByteBuffer} with absolute reads, without copying them out.
+ */
+public class BinaryFormat {
+    // The bytes "KNAP"
+    static final int MAGIC = 0x4B4E4150;
+    static final short VERSION = 1;
+    static final short TEST_CASES = 1;
+    static final short SOLUTIONS = 2;
+    // Weight scale of files converted from text, which has weights with up to two decimals
+    public static final int DEFAULT_WEIGHT_SCALE = 100;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int TEST_CASE_HEADER_SIZE = HEADER_SIZE + Integer.BYTES;
+    private static final int ITEM_SIZE = 3 * Integer.BYTES;
+    // Largest region of a file that is mapped into memory at once
+    private static final int MAX_MAPPED_REGION_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private BinaryFormat() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Reads the test cases of a binary buffer one by one and passes each of them to the consumer.
+     * The buffer's position and limit are left untouched.
+     *
+     * @param buffer The buffer holding a whole binary test case file, from its position to its limit.
+     * @param consumer The operation to apply to each test case, in file order.
+     * @throws APIException If the buffer is not a valid binary test case file or the consumer fails.
+     */
+    public static void forEachTestCase(ByteBuffer buffer, TestCaseConsumer consumer) throws APIException {
+        forEachRecord(buffer, (records, start, length, scale) -> consumer.accept(parseTestCase(records, start, length, scale)));
+    }
+
+    /**
+     * Reads and validates the test cases of a binary buffer one by one, filling the arrays of an
+     * {@link ArrayKnapsackProblemInstance} straight from the fixed-point integers of each record when the weight scale
+     * of the buffer is the WEIGHT_SCALE_FACTOR. The buffer's position and limit are left untouched.
+     *
+     * @param buffer The buffer holding a whole binary test case file, from its position to its limit.
+     * @param consumer The operation to apply to each valid test case, in file order.
+     * @throws APIException If the buffer is not a valid binary test case file, a test case is not valid,
+     *                      or the consumer fails.
+     */
+    public static void forEachValidArrayTestCase(ByteBuffer buffer, ArrayTestCaseConsumer consumer) throws APIException {
+        forEachRecord(buffer, (records, start, length, scale) -> consumer.accept(parseValidArrayTestCase(records, start, length, scale)));
+    }
+
+    /**
+     * Reads the test case records of a binary buffer one by one.
+     *
+     * @param buffer The buffer holding a whole binary test case file, from its position to its limit.
+     * @param consumer The operation to apply to each record, in file order.
+     * @throws APIException If the buffer is not a valid binary test case file or the consumer fails.
+     */
+    private static void forEachRecord(ByteBuffer buffer, RecordConsumer consumer) throws APIException {
+        int start = buffer.position();
+        int scale = readTestCaseHeader(buffer, start, buffer.limit() - start);
+        int end = parseTestCases(buffer, start + TEST_CASE_HEADER_SIZE, buffer.limit(), scale, consumer);
+        if (end != buffer.limit()) {
+            throw new MalformedInputException("Truncated binary record at offset " + (end - start));
+        }
+    }
+
+    /**
+     * Reads the test cases of a binary file one by one, memory-mapping the file.
+     *
+     * @param filePath The path to the binary test case file.
+     * @param consumer The operation to apply to each test case, in file order.
+     * @throws APIException If an error occurs while reading the file, it is not a valid binary test case file,
+     *                      or the consumer fails.
+     */
+    public static void forEachTestCase(String filePath, TestCaseConsumer consumer) throws APIException {
+        forEachTestCase(filePath, consumer, MAX_MAPPED_REGION_SIZE);
+    }
+
+    /**
+     * Reads the test cases of a binary file one by one, mapping at most {@code regionSize} bytes of the file at a time,
+     * for example to bound the address space a very large file takes. A record cut off at the end of a region is read
+     * again from the start of the next one.
+     *
+     * @param filePath The path to the binary test case file.
+     * @param consumer The operation to apply to each test case, in file order.
+     * @param regionSize The largest number of bytes to map at once. Every record must fit into it.
+     * @throws APIException If an error occurs while reading the file, it is not a valid binary test case file,
+     *                      or the consumer fails.
+     */
+    public static void forEachTestCase(String filePath, TestCaseConsumer consumer, int regionSize) throws APIException {
+        forEachRecord(filePath, (records, start, length, scale) -> consumer.accept(parseTestCase(records, start, length, scale)), regionSize);
+    }
+
+    /**
+     * Reads and validates the test cases of a binary file one by one like
+     * {@link #forEachValidArrayTestCase(ByteBuffer, ArrayTestCaseConsumer)}, memory-mapping the file.
+     *
+     * @param filePath The path to the binary test case file.
+     * @param consumer The operation to apply to each valid test case, in file order.
+     * @throws APIException If an error occurs while reading the file, it is not a valid binary test case file,
+     *                      a test case is not valid, or the consumer fails.
+     */
+    public static void forEachValidArrayTestCase(String filePath, ArrayTestCaseConsumer consumer) throws APIException {
+        forEachRecord(filePath, (records, start, length, scale) -> consumer.accept(parseValidArrayTestCase(records, start, length, scale)),
+                MAX_MAPPED_REGION_SIZE);
+    }
+
+    /**
+     * Reads the test case records of a binary file one by one, mapping at most {@code regionSize} bytes of the file
+     * at a time.
+     *
+     * @param filePath The path to the binary test case file.
+     * @param consumer The operation to apply to each record, in file order.
+     * @param regionSize The largest number of bytes to map at once. Every record must fit into it.
+     * @throws APIException If an error occurs while reading the file, it is not a valid binary test case file,
+     *                      or the consumer fails.
+     */
+    private static void forEachRecord(String filePath, RecordConsumer consumer, int regionSize) throws APIException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int headerSize = (int) Math.min(fileSize, TEST_CASE_HEADER_SIZE);
+            int scale = readTestCaseHeader(channel.map(FileChannel.MapMode.READ_ONLY, 0, headerSize), 0, headerSize);
+            long regionStart = TEST_CASE_HEADER_SIZE;
+            while (regionStart < fileSize) {
+                int size = (int) Math.min(fileSize - regionStart, regionSize);
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, size);
+                int consumed = parseTestCases(region, 0, size, scale, consumer);
+                if (consumed == 0) {
+                    String problem = regionStart + size == fileSize ? "Truncated binary record" : "Record longer than " + regionSize + " bytes";
+                    throw new MalformedInputException(problem + " at offset " + regionStart);
+                }
+                // The next region starts with the record that was cut off at the end of this one
+                regionStart += consumed;
+            }
+        } catch (NoSuchFileException e) {
+            throw new FileReadingException("File not found", e);
+        } catch (IOException e) {
+            throw new FileReadingException("Failed to read file: " + filePath, e);
+        }
+    }
+
+    /**
+     * Checks the header of a binary test case file and reads its weight scale.
+     *
+     * @param buffer The buffer holding the header.
+     * @param start The index of the first byte of the header.
+     * @param size The number of bytes available from the start.
+     * @return The weight scale.
+     * @throws MalformedInputException If the header is missing or not that of a supported test case file.
+     */
+    private static int readTestCaseHeader(ByteBuffer buffer, int start, int size) throws MalformedInputException {
+        checkHeader(buffer, start, size, TEST_CASES);
+        if (size < TEST_CASE_HEADER_SIZE) {
+            throw new MalformedInputException("Truncated binary header");
+        }
+        int scale = buffer.getInt(start + HEADER_SIZE);
+        if (scale < 1) {
+            throw new MalformedInputException("Invalid weight scale: " + scale);
+        }
+        return scale;
+    }
+
+    /**
+     * Checks the magic bytes, the version and the content type of a binary file.
+     *
+     * @param buffer The buffer holding the header.
+     * @param start The index of the first byte of the header.
+     * @param size The number of bytes available from the start.
+     * @param type The expected content type.
+     * @throws MalformedInputException If the header is missing or not that of a supported file of the type.
+     */
+    private static void checkHeader(ByteBuffer buffer, int start, int size, short type) throws MalformedInputException {
+        if (size < HEADER_SIZE || buffer.getInt(start) != MAGIC) {
+            throw new MalformedInputException("Not a binary knapsack file");
+        }
+        short version = buffer.getShort(start + 4);
+        if (version != VERSION) {
+            throw new MalformedInputException("Unsupported binary format version: " + version);
+        }
+        if (buffer.getShort(start + 6) != type) {
+            throw new MalformedInputException(type == TEST_CASES ? "Not a binary test case file" : "Not a binary solution file");
+        }
+    }
+
+    /**
+     * Parses the complete test case records between two indices of a buffer.
+     *
+     * @param buffer The buffer holding the records.
+     * @param start The index of the first record.
+     * @param end The index just after the last available byte.
+     * @param scale The weight scale of the file.
+     * @param consumer The operation to apply to each record.
+     * @return The index just after the last complete record, which is the start of the first incomplete one.
+     * @throws APIException If a record is corrupt or the consumer fails.
+     */
+    private static int parseTestCases(ByteBuffer buffer, int start, int end, int scale, RecordConsumer consumer) throws APIException {
+        int position = start;
+        while (end - position >= Integer.BYTES) {
+            int length = buffer.getInt(position);
+            if (length < 2 * Integer.BYTES || (length - 2 * Integer.BYTES) % ITEM_SIZE != 0) {
+                throw new MalformedInputException("Corrupt binary record length: " + length);
+            }
+            if (end - position - Integer.BYTES < length) {
+                break;
+            }
+            consumer.accept(buffer, position + Integer.BYTES, length, scale);
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * Parses a single test case record.
+     *
+     * @param buffer The buffer holding the record.
+     * @param start The index of the first byte after the length prefix.
+     * @param length The number of bytes in the record after the length prefix.
+     * @param scale The weight scale of the file.
+     * @return The test case.
+     * @throws MalformedInputException If the record is corrupt.
+     */
+    private static KnapsackProblemInstance parseTestCase(ByteBuffer buffer, int start, int length, int scale) throws MalformedInputException {
+        int maxWeight = buffer.getInt(start);
+        int itemCount = buffer.getInt(start + Integer.BYTES);
+        if (maxWeight < 0 || itemCount != (length - 2 * Integer.BYTES) / ITEM_SIZE) {
+            throw new MalformedInputException("Corrupt binary record at maximum weight " + maxWeight);
+        }
+        Item[] items = new Item[itemCount];
+        int position = start + 2 * Integer.BYTES;
+        for (int i = 0; i < itemCount; i++) {
+            int index = buffer.getInt(position);
+            int weight = buffer.getInt(position + Integer.BYTES);
+            int cost = buffer.getInt(position + 2 * Integer.BYTES);
+            if (index < 0 || weight < 0 || cost < 0) {
+                throw new MalformedInputException("Negative value in binary item " + index);
+            }
+            // Dividing the exact integer by the scale gives the same double as parsing the decimal text
+            items[i] = new Item(index, weight / (double) scale, cost);
+            position += ITEM_SIZE;
+        }
+        return new KnapsackProblemInstance(maxWeight, List.of(items));
+    }
+
+    /**
+     * Parses and validates a single test case record into arrays. At the WEIGHT_SCALE_FACTOR the fixed-point weights
+     * of the record are those the solvers work with, so they are copied as they are and validated while the record is
+     * read; at any other scale the record is parsed into items, validated and scaled.
+     *
+     * @param buffer The buffer holding the record.
+     * @param start The index of the first byte after the length prefix.
+     * @param length The number of bytes in the record after the length prefix.
+     * @param scale The weight scale of the file.
+     * @return The valid test case.
+     * @throws APIException If the record is corrupt or the test case is not valid.
+     */
+    private static ArrayKnapsackProblemInstance parseValidArrayTestCase(ByteBuffer buffer, int start, int length, int scale) throws APIException {
+        ParseTrace trace = new ParseTrace();
+        if (scale != FixedPoint.WEIGHT_SCALE_FACTOR) {
+            KnapsackProblemInstance testCase = parseTestCase(buffer, start, length, scale);
+            trace.parsed();
+            ValidationService.validateKnapsackProblemInstance(testCase);
+            trace.validated();
+            trace.commit(length, true, testCase.itemList().size(), testCase.maxWeight());
+            return ArrayKnapsackProblemInstance.from(testCase);
+        }
+        int maxWeight = buffer.getInt(start);
+        int itemCount = buffer.getInt(start + Integer.BYTES);
+        if (maxWeight < 0 || itemCount != (length - 2 * Integer.BYTES) / ITEM_SIZE) {
+            throw new MalformedInputException("Corrupt binary record at maximum weight " + maxWeight);
+        }
+        TestCaseValidator validator = new TestCaseValidator();
+        validator.setMaxWeight(maxWeight);
+        int capacity = Math.min(itemCount, ValidationService.MAX_ITEM_COUNT);
+        int[] indices = new int[capacity];
+        int[] weights = new int[capacity];
+        int[] costs = new int[capacity];
+        int size = 0;
+        int position = start + 2 * Integer.BYTES;
+        for (int i = 0; i < itemCount; i++) {
+            int index = buffer.getInt(position);
+            int weight = buffer.getInt(position + Integer.BYTES);
+            int cost = buffer.getInt(position + 2 * Integer.BYTES);
+            if (index < 0 || weight < 0 || cost < 0) {
+                throw new MalformedInputException("Negative value in binary item " + index);
+            }
+            // Items the validator rejects are not kept, which also keeps costs too large to scale out of the arrays
+            if (validator.addItem(weight / (double) scale, cost)) {
+                indices[size] = index;
+                weights[size] = weight;
+                costs[size] = FixedPoint.scaleCost(cost);
+                size++;
+            }
+            position += ITEM_SIZE;
+        }
+        trace.parsed();
+        validator.validate();
+        trace.validated();
+        trace.commit(length, true, itemCount, maxWeight);
+        return new ArrayKnapsackProblemInstance(maxWeight, size, indices, weights, costs);
+    }
+
+    /**
+     * Converts a text test case file to the binary format, with the {@link #DEFAULT_WEIGHT_SCALE default weight scale}.
+     *
+     * @param textFilePath The path to the text test case file.
+     * @param binaryFilePath The path to write the binary file to. An existing file is replaced.
+     * @throws APIException If the text file cannot be read or parsed, a weight or cost cannot be represented
+     *                      exactly in the binary format, or the binary file cannot be written.
+     */
+    public static void convertTestCases(String textFilePath, String binaryFilePath) throws APIException {
+        try (OutputStream output = Files.newOutputStream(Paths.get(binaryFilePath))) {
+            TestCaseWriter writer = new TestCaseWriter(output, DEFAULT_WEIGHT_SCALE);
+            FileReader.forEachTestCase(textFilePath, writer::write);
+            writer.flush();
+        } catch (IOException e) {
+            throw new APIException("Failed to write file: " + binaryFilePath, e);
+        }
+    }
+
+    /**
+     * Reads the solutions of a binary buffer one by one, in the text form the solvers return.
+     * The buffer's position and limit are left untouched.
+     *
+     * @param buffer The buffer holding a whole binary solution file, from its position to its limit.
+     * @param consumer The operation to apply to each solution, in file order.
+     * @throws MalformedInputException If the buffer is not a valid binary solution file.
+     */
+    public static void forEachSolution(ByteBuffer buffer, Consumer<String> consumer) throws MalformedInputException {
+        int start = buffer.position();
+        int end = buffer.limit();
+        checkHeader(buffer, start, end - start, SOLUTIONS);
+        int position = start + HEADER_SIZE;
+        while (position < end) {
+            if (end - position < 2 * Integer.BYTES) {
+                throw new MalformedInputException("Truncated binary record at offset " + (position - start));
+            }
+            int length = buffer.getInt(position);
+            int count = buffer.getInt(position + Integer.BYTES);
+            if (count < 0 || length != (count + 1) * Integer.BYTES || end - position - Integer.BYTES < length) {
+                throw new MalformedInputException("Corrupt binary record at offset " + (position - start));
+            }
+            StringBuilder solution = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                solution.append(i == 0 ? "" : ",").append(buffer.getInt(position + (i + 2) * Integer.BYTES));
+            }
+            consumer.accept(count == 0 ? "-" : solution.toString());
+            position += Integer.BYTES + length;
+        }
+    }
+
+    /**
+     * Writes test cases in the binary format. The header is written when the writer is constructed.
+     */
+    public static final class TestCaseWriter {
+        private final DataOutputStream output;
+        private final int scale;
+
+        /**
+         * Constructs a writer and writes the header.
+         *
+         * @param output The stream to write to. It is not closed by the writer.
+         * @param scale The weight scale: weights are written in units of 1 / scale.
+         * @throws APIException If the header cannot be written.
+         */
+        public TestCaseWriter(OutputStream output, int scale) throws APIException {
+            if (scale < 1) {
+                throw new IllegalArgumentException("scale must be at least 1");
+            }
+            this.output = new DataOutputStream(new BufferedOutputStream(output));
+            this.scale = scale;
+            try {
+                this.output.writeInt(MAGIC);
+                this.output.writeShort(VERSION);
+                this.output.writeShort(TEST_CASES);
+                this.output.writeInt(scale);
+            } catch (IOException e) {
+                throw new APIException("Failed to write binary header", e);
+            }
+        }
+
+        /**
+         * Writes a test case record.
+         *
+         * @param testCase The test case to write.
+         * @throws MalformedInputException If a weight is not a whole number of 1 / scale units or a cost is not
+         *                                 a whole number, as the binary format cannot represent them exactly.
+         * @throws APIException If the record cannot be written.
+         */
+        public void write(KnapsackProblemInstance testCase) throws APIException {
+            List<Item> items = testCase.itemList();
+            try {
+                output.writeInt(2 * Integer.BYTES + items.size() * ITEM_SIZE);
+                output.writeInt(testCase.maxWeight());
+                output.writeInt(items.size());
+                for (Item item : items) {
+                    output.writeInt(item.index());
+                    output.writeInt(toFixedPoint(item.weight(), scale, "Weight"));
+                    output.writeInt(toFixedPoint(item.cost(), 1, "Cost"));
+                }
+            } catch (IOException e) {
+                throw new APIException("Failed to write binary test case", e);
+            }
+        }
+
+        /**
+         * Flushes the records written so far to the underlying stream.
+         *
+         * @throws APIException If the records cannot be written.
+         */
+        public void flush() throws APIException {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new APIException("Failed to write binary test case", e);
+            }
+        }
+
+        /**
+         * Converts a value to a fixed-point integer, requiring that it is represented exactly.
+         *
+         * @param value The value.
+         * @param scale The number of units per whole value.
+         * @param name The name of the value, for the error message.
+         * @return The value in units of 1 / scale.
+         * @throws MalformedInputException If the value is not a whole number of units or does not fit into an int.
+         */
+        private static int toFixedPoint(double value, int scale, String name) throws MalformedInputException {
+            double scaled = Math.rint(value * scale);
+            if (scaled / scale != value || scaled > Integer.MAX_VALUE) {
+                throw new MalformedInputException(name + " cannot be stored at scale " + scale + ": " + value);
+            }
+            return (int) scaled;
+        }
+    }
+
+    /**
+     * Writes solutions in the binary format. The header is written when the writer is constructed.
+     */
+    public static final class SolutionWriter {
+        private final DataOutputStream output;
+
+        /**
+         * Constructs a writer and writes the header.
+         *
+         * @param output The stream to write to. It is not closed by the writer.
+         * @throws APIException If the header cannot be written.
+         */
+        public SolutionWriter(OutputStream output) throws APIException {
+            this.output = new DataOutputStream(new BufferedOutputStream(output));
+            try {
+                this.output.writeInt(MAGIC);
+                this.output.writeShort(VERSION);
+                this.output.writeShort(SOLUTIONS);
+            } catch (IOException e) {
+                throw new APIException("Failed to write binary header", e);
+            }
+        }
+
+        /**
+         * Writes a solution record.
+         *
+         * @param solution The solution as returned by the solvers: item indices separated by commas, or "-".
+         * @throws APIException If the record cannot be written.
+         */
+        public void write(String solution) throws APIException {
+            try {
+                if (solution.equals("-")) {
+                    output.writeInt(Integer.BYTES);
+                    output.writeInt(0);
+                    return;
+                }
+                int count = 1;
+                for (int i = 0; i < solution.length(); i++) {
+                    if (solution.charAt(i) == ',') {
+                        count++;
+                    }
+                }
+                output.writeInt((count + 1) * Integer.BYTES);
+                output.writeInt(count);
+                int index = 0;
+                for (int i = 0; i < solution.length(); i++) {
+                    char c = solution.charAt(i);
+                    if (c == ',') {
+                        output.writeInt(index);
+                        index = 0;
+                    } else {
+                        index = index * 10 + (c - '0');
+                    }
+                }
+                output.writeInt(index);
+            } catch (IOException e) {
+                throw new APIException("Failed to write binary solution", e);
+            }
+        }
+
+        /**
+         * Flushes the records written so far to the underlying stream.
+         *
+         * @throws APIException If the records cannot be written.
+         */
+        public void flush() throws APIException {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new APIException("Failed to write binary solution", e);
+            }
+        }
+    }
+
+    /**
+     * This interface represents an operation that is applied to each complete test case record of a buffer.
+     */
+    @FunctionalInterface
+    private interface RecordConsumer {
+        /**
+         * Performs this operation on a record.
+         *
+         * @param buffer The buffer holding the record.
+         * @param start The index of the first byte after the length prefix.
+         * @param length The number of bytes in the record after the length prefix.
+         * @param scale The weight scale of the file.
+         * @throws APIException If the record cannot be processed.
+         */
+        void accept(ByteBuffer buffer, int start, int length, int scale) throws APIException;
+    }
+}
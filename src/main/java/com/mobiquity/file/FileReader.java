@@ -1,22 +1,32 @@
 package com.mobiquity.file;
 
 import com.mobiquity.exception.*;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
 import com.mobiquity.model.Item;
 import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.validation.TestCaseValidator;
+import com.mobiquity.validation.ValidationService;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
-//test 2
 
 /**
  * This class is responsible for reading and parsing test cases from a file.
  */
 public class FileReader {
 
+    // Largest region of a file that is mapped into memory at once
+    private static final int MAX_MAPPED_REGION_SIZE = Integer.MAX_VALUE;
+
     /**
      * Private constructor to prevent instantiation of utility class.
      */
@@ -32,14 +42,194 @@ public class FileReader {
      * @throws APIException If an error occurs while reading the file or parsing the test cases.
      */
     public static List<KnapsackProblemInstance> readTestCasesFromFile(String filePath) throws APIException {
-        try {
-            Scanner scanner = new Scanner(new File(filePath));
-            return parseTestCases(scanner);
-        } catch (FileNotFoundException e) {
+        List<KnapsackProblemInstance> testCases = new ArrayList<>();
+        forEachTestCase(filePath, testCases::add);
+        return testCases;
+    }
+
+    /**
+     * Reads test cases from a file, validating each of them while its line is parsed.
+     *
+     * @param filePath The path to the file containing the test cases.
+     * @return A list of KnapsackProblemInstance objects representing the test cases, all of them valid.
+     * @throws APIException If an error occurs while reading the file, or a line is malformed or not valid.
+     *                      The error is that of the first line that fails.
+     */
+    public static List<KnapsackProblemInstance> readValidTestCasesFromFile(String filePath) throws APIException {
+        List<KnapsackProblemInstance> testCases = new ArrayList<>();
+        forEachValidTestCase(filePath, testCases::add);
+        return testCases;
+    }
+
+    /**
+     * Reads the test cases of a file one by one and passes each of them to the consumer as soon as it is parsed.
+     * The file is memory-mapped and split into lines directly over the mapped bytes, which are parsed without
+     * being decoded into strings first. Lines end with {@code \n}, {@code \r\n} or {@code \r} and are UTF-8 encoded.
+     *
+     * @param filePath The path to the file containing the test cases.
+     * @param consumer The operation to apply to each test case, in file order.
+     * @throws APIException If an error occurs while reading the file, parsing the test cases or consuming them.
+     */
+    public static void forEachTestCase(String filePath, TestCaseConsumer consumer) throws APIException {
+        forEachLine(filePath, (buffer, start, end) -> consumer.accept(parseTestCase(buffer, start, end, false)), MAX_MAPPED_REGION_SIZE);
+    }
+
+    /**
+     * Reads the test cases of a file one by one like {@link #forEachTestCase(String, TestCaseConsumer)}, validating each
+     * of them in the same pass as its line is parsed, with the same exceptions as {@link ValidationService}.
+     *
+     * @param filePath The path to the file containing the test cases.
+     * @param consumer The operation to apply to each valid test case, in file order.
+     * @throws APIException If an error occurs while reading the file, a line is malformed or not valid,
+     *                      or the consumer fails.
+     */
+    public static void forEachValidTestCase(String filePath, TestCaseConsumer consumer) throws APIException {
+        forEachLine(filePath, (buffer, start, end) -> consumer.accept(parseTestCase(buffer, start, end, true)), MAX_MAPPED_REGION_SIZE);
+    }
+
+    /**
+     * Reads the test cases of a file one by one, mapping at most {@code regionSize} bytes of the file at a time,
+     * for example to bound the address space a very large file takes. A line cut off at the end of a region is read
+     * again from the start of the next one.
+     *
+     * @param filePath The path to the file containing the test cases.
+     * @param consumer The operation to apply to each test case, in file order.
+     * @param regionSize The largest number of bytes to map at once. Every line must fit into it.
+     * @throws APIException If an error occurs while reading the file, parsing the test cases or consuming them.
+     */
+    public static void forEachTestCase(String filePath, TestCaseConsumer consumer, int regionSize) throws APIException {
+        forEachLine(filePath, (buffer, start, end) -> consumer.accept(parseTestCase(buffer, start, end, false)), regionSize);
+    }
+
+    /**
+     * Reads and validates the test cases of a file one by one like {@link #forEachValidTestCase(String, TestCaseConsumer)},
+     * filling the arrays of an {@link ArrayKnapsackProblemInstance} straight from the mapped bytes of each line.
+     *
+     * @param filePath The path to the file containing the test cases.
+     * @param consumer The operation to apply to each valid test case, in file order.
+     * @throws APIException If an error occurs while reading the file, a line is malformed or not valid,
+     *                      or the consumer fails.
+     */
+    public static void forEachValidArrayTestCase(String filePath, ArrayTestCaseConsumer consumer) throws APIException {
+        forEachLine(filePath, (buffer, start, end) -> consumer.accept(parseArrayTestCase(buffer, start, end)), MAX_MAPPED_REGION_SIZE);
+    }
+
+    /**
+     * Reads the lines of a file one by one, mapping at most {@code regionSize} bytes of the file at a time.
+     *
+     * @param filePath The path to the file containing the test cases.
+     * @param consumer The operation to apply to the bytes of each line, in file order.
+     * @param regionSize The largest number of bytes to map at once. Every line must fit into it.
+     * @throws APIException If an error occurs while reading the file or consuming a line.
+     */
+    static void forEachLine(String filePath, LineConsumer consumer, int regionSize) throws APIException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long regionStart = 0;
+            while (regionStart < fileSize) {
+                int size = (int) Math.min(fileSize - regionStart, regionSize);
+                boolean lastRegion = regionStart + size == fileSize;
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, size);
+                int consumed = splitLines(region, size, lastRegion, consumer);
+                if (consumed == 0) {
+                    throw new FileReadingException("Line longer than " + regionSize + " bytes at offset " + regionStart);
+                }
+                // The next region starts with the line that was cut off at the end of this one
+                regionStart += consumed;
+            }
+        } catch (NoSuchFileException e) {
             throw new FileReadingException("File not found", e);
+        } catch (IOException e) {
+            throw new FileReadingException("Failed to read file: " + filePath, e);
         }
     }
 
+    /**
+     * Splits a mapped region of a file into lines and passes each complete line to the consumer.
+     *
+     * @param region The mapped bytes.
+     * @param size The number of bytes in the region.
+     * @param lastRegion Whether the region ends at the end of the file, in which case the last line needs no terminator.
+     * @param consumer The operation to apply to each line.
+     * @return The number of bytes consumed, up to the start of the first incomplete line.
+     * @throws APIException If the consumer fails.
+     */
+    private static int splitLines(ByteBuffer region, int size, boolean lastRegion, LineConsumer consumer) throws APIException {
+        int lineStart = 0;
+        for (int i = 0; i < size; i++) {
+            byte b = region.get(i);
+            if (b != '\n' && b != '\r') {
+                continue;
+            }
+            if (b == '\r' && i + 1 == size && !lastRegion) {
+                // A \n may follow in the next region
+                break;
+            }
+            consumer.accept(region, lineStart, i);
+            if (b == '\r' && i + 1 < size && region.get(i + 1) == '\n') {
+                i++;
+            }
+            lineStart = i + 1;
+        }
+        if (lastRegion && lineStart < size) {
+            consumer.accept(region, lineStart, size);
+            lineStart = size;
+        }
+        return lineStart;
+    }
+
+    /**
+     * Parses a single test case from the UTF-8 bytes of a line.
+     *
+     * @param buffer The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index just after the last byte of the line.
+     * @param validate Whether to validate the test case while parsing it.
+     * @return A KnapsackProblemInstance object representing the test case.
+     * @throws APIException If the line is not in the expected format, or the test case is not valid.
+     */
+    private static KnapsackProblemInstance parseTestCase(ByteBuffer buffer, int start, int end, boolean validate) throws APIException {
+        ParseTrace trace = new ParseTrace();
+        TestCaseValidator validator = validate ? new TestCaseValidator() : null;
+        KnapsackProblemInstance testCase = LineParser.parse(buffer, start, end, validator);
+        boolean wellFormed = testCase != null;
+        if (!wellFormed) {
+            // Only lines outside the well-formed shape are decoded, to go through the lenient parsing
+            testCase = parseTestCaseWithSplit(StandardCharsets.UTF_8.decode(buffer.slice(start, end - start)).toString());
+        }
+        trace.parsed();
+        if (validate) {
+            validate(testCase, wellFormed ? validator : null);
+            trace.validated();
+        }
+        trace.commit(end - start, wellFormed, testCase.itemList().size(), testCase.maxWeight());
+        return testCase;
+    }
+
+    /**
+     * Parses and validates a single test case from the UTF-8 bytes of a line into arrays.
+     *
+     * @param buffer The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index just after the last byte of the line.
+     * @return An ArrayKnapsackProblemInstance object representing the valid test case.
+     * @throws APIException If the line is not in the expected format, or the test case is not valid.
+     */
+    private static ArrayKnapsackProblemInstance parseArrayTestCase(ByteBuffer buffer, int start, int end) throws APIException {
+        ParseTrace trace = new ParseTrace();
+        TestCaseValidator validator = new TestCaseValidator();
+        ArrayKnapsackProblemInstance testCase = LineParser.parseArrays(buffer, start, end, validator);
+        if (testCase == null) {
+            // The lenient parsing traces the line itself
+            return ArrayKnapsackProblemInstance.from(parseTestCase(buffer, start, end, true));
+        }
+        trace.parsed();
+        validator.validate();
+        trace.validated();
+        trace.commit(end - start, true, testCase.size(), testCase.maxWeight());
+        return testCase;
+    }
+
     /**
      * Parses test cases from a Scanner object.
      *
@@ -58,12 +248,97 @@ public class FileReader {
 
     /**
      * Parses a single test case from a string.
+     * Well-formed lines are read in a single pass by {@link LineParser}; anything else goes through the
+     * split-based parsing, so the accepted input and the error messages are the same as before.
      *
      * @param line The string containing the test case data.
      * @return A KnapsackProblemInstance object representing the test case.
      * @throws MalformedInputException If the string is not in the expected format.
      */
     public static KnapsackProblemInstance parseTestCase(String line) throws MalformedInputException {
+        ParseTrace trace = new ParseTrace();
+        KnapsackProblemInstance testCase = LineParser.parse(line, null);
+        boolean wellFormed = testCase != null;
+        if (!wellFormed) {
+            testCase = parseTestCaseWithSplit(line);
+        }
+        trace.parsed();
+        trace.commit(line.length(), wellFormed, testCase.itemList().size(), testCase.maxWeight());
+        return testCase;
+    }
+
+    /**
+     * Parses and validates a single test case from a string. Well-formed lines are validated while they are parsed,
+     * so the item, weight and cost limits are checked as the numbers are read, and a line with too many items is
+     * rejected without allocating the items beyond the limit.
+     *
+     * @param line The string containing the test case data.
+     * @return A KnapsackProblemInstance object representing the valid test case.
+     * @throws APIException If the string is not in the expected format, or the test case is not valid,
+     *                      with the same exceptions as {@link ValidationService}.
+     */
+    public static KnapsackProblemInstance parseValidTestCase(String line) throws APIException {
+        ParseTrace trace = new ParseTrace();
+        TestCaseValidator validator = new TestCaseValidator();
+        KnapsackProblemInstance testCase = LineParser.parse(line, validator);
+        boolean wellFormed = testCase != null;
+        if (!wellFormed) {
+            testCase = parseTestCaseWithSplit(line);
+        }
+        trace.parsed();
+        validate(testCase, wellFormed ? validator : null);
+        trace.validated();
+        trace.commit(line.length(), wellFormed, testCase.itemList().size(), testCase.maxWeight());
+        return testCase;
+    }
+
+    /**
+     * Parses and validates a single test case from a string into arrays, like {@link #parseValidTestCase(String)}
+     * but without creating an {@link Item} for every item.
+     *
+     * @param line The string containing the test case data.
+     * @return An ArrayKnapsackProblemInstance object representing the valid test case.
+     * @throws APIException If the string is not in the expected format, or the test case is not valid,
+     *                      with the same exceptions as {@link ValidationService}.
+     */
+    public static ArrayKnapsackProblemInstance parseValidArrayTestCase(String line) throws APIException {
+        ParseTrace trace = new ParseTrace();
+        TestCaseValidator validator = new TestCaseValidator();
+        ArrayKnapsackProblemInstance testCase = LineParser.parseArrays(line, validator);
+        if (testCase == null) {
+            // The lenient parsing traces the line itself
+            return ArrayKnapsackProblemInstance.from(parseValidTestCase(line));
+        }
+        trace.parsed();
+        validator.validate();
+        trace.validated();
+        trace.commit(line.length(), true, testCase.size(), testCase.maxWeight());
+        return testCase;
+    }
+
+    /**
+     * Validates a parsed test case, with the validator that was fed while the line was parsed if there is one.
+     *
+     * @param testCase The parsed test case.
+     * @param validator The validator fed with the test case, or null if the line went through the lenient parsing.
+     * @throws APIException If the test case is not valid.
+     */
+    private static void validate(KnapsackProblemInstance testCase, TestCaseValidator validator) throws APIException {
+        if (validator != null) {
+            validator.validate();
+        } else {
+            ValidationService.validateKnapsackProblemInstance(testCase);
+        }
+    }
+
+    /**
+     * Parses a single test case from a string by splitting it into its parts.
+     *
+     * @param line The string containing the test case data.
+     * @return A KnapsackProblemInstance object representing the test case.
+     * @throws MalformedInputException If the string is not in the expected format.
+     */
+    private static KnapsackProblemInstance parseTestCaseWithSplit(String line) throws MalformedInputException {
         String[] parts = line.split(":");
         if (parts.length != 2) {
             throw new MalformedInputException("Malformed line: " + line);
@@ -138,4 +413,19 @@ public class FileReader {
         return new Item(index, weight, cost);
     }
 
+    /**
+     * An operation on the UTF-8 bytes of a line of a file.
+     */
+    @FunctionalInterface
+    interface LineConsumer {
+        /**
+         * Performs this operation on a line.
+         *
+         * @param buffer The buffer holding the line.
+         * @param start The index of the first byte of the line.
+         * @param end The index just after the last byte of the line, excluding the line terminator.
+         * @throws APIException If the line cannot be processed.
+         */
+        void accept(ByteBuffer buffer, int start, int end) throws APIException;
+    }
 }
@@ -0,0 +1,343 @@
+package com.mobiquity.file;
+
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.Item;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.util.FixedPoint;
+import com.mobiquity.validation.TestCaseValidator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class is a single-pass parser for test case lines in the well-formed shape
+ * {@code 81 : (1,53.38,€45) (2,88.62,€98)}.
+ * It reads the numbers straight from the characters of the line, without regular expressions or temporary strings.
+ * Any line that does not have exactly this shape is rejected with {@code null}, so that the caller can fall back
+ * to the lenient split-based parsing, which accepts the same lines and reports the same errors as before.
+ * Lines can be parsed from a string or straight from the UTF-8 bytes of a buffer.
+ * <p>
+ * A {@link TestCaseValidator} can be fed with the maximum weight and the items as they are read, so that the limits
+ * are checked in the same pass. Items beyond the item count limit are then read but not allocated.
+ * <p>
+ * A line can also be parsed straight into the arrays of an {@link ArrayKnapsackProblemInstance}, with the weights and
+ * costs scaled as they are read, so that no {@link Item} is created at all.
+ */
+abstract class LineParser {
+
+    // Powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+    // Longest integer that cannot overflow an int
+    private static final int MAX_INT_DIGITS = 9;
+    // Longest decimal whose digits are exactly representable in a double
+    private static final int MAX_DECIMAL_DIGITS = 15;
+
+    // Initial length of the arrays of an ArrayKnapsackProblemInstance, enough for the default item count limit
+    private static final int INITIAL_ARRAY_LENGTH = 16;
+
+    // UTF-8 encoding of the euro sign
+    private static final byte[] EURO_SIGN_UTF8 = {(byte) 0xE2, (byte) 0x82, (byte) 0xAC};
+
+    final int end;
+    int position;
+    private int maxWeight;
+    // The item read last by parseItem
+    private int itemIndex;
+    private double itemWeight;
+    private int itemCost;
+
+    /**
+     * Constructs a parser over the characters or bytes from {@code start} (inclusive) to {@code end} (exclusive).
+     *
+     * @param start The position of the first character of the line.
+     * @param end The position just after the last character of the line.
+     */
+    private LineParser(int start, int end) {
+        this.position = start;
+        this.end = end;
+    }
+
+    /**
+     * Parses a well-formed test case line.
+     *
+     * @param line The string containing the test case data.
+     * @param validator The validator to feed with the test case, or null.
+     * @return The parsed test case, or null if the line is not in the well-formed shape.
+     */
+    static KnapsackProblemInstance parse(String line, TestCaseValidator validator) {
+        return new StringLineParser(line).parseTestCase(validator);
+    }
+
+    /**
+     * Parses a well-formed test case line from its UTF-8 bytes, without decoding them into a string.
+     *
+     * @param buffer The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index just after the last byte of the line, excluding the line terminator.
+     * @param validator The validator to feed with the test case, or null.
+     * @return The parsed test case, or null if the line is not in the well-formed shape.
+     */
+    static KnapsackProblemInstance parse(ByteBuffer buffer, int start, int end, TestCaseValidator validator) {
+        return new ByteLineParser(buffer, start, end).parseTestCase(validator);
+    }
+
+    /**
+     * Parses and validates a well-formed test case line into arrays.
+     *
+     * @param line The string containing the test case data.
+     * @param validator The validator to feed with the test case.
+     * @return The parsed test case, or null if the line is not in the well-formed shape.
+     */
+    static ArrayKnapsackProblemInstance parseArrays(String line, TestCaseValidator validator) {
+        return new StringLineParser(line).parseArrayTestCase(validator);
+    }
+
+    /**
+     * Parses and validates a well-formed test case line into arrays, from its UTF-8 bytes.
+     *
+     * @param buffer The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end The index just after the last byte of the line, excluding the line terminator.
+     * @param validator The validator to feed with the test case.
+     * @return The parsed test case, or null if the line is not in the well-formed shape.
+     */
+    static ArrayKnapsackProblemInstance parseArrays(ByteBuffer buffer, int start, int end, TestCaseValidator validator) {
+        return new ByteLineParser(buffer, start, end).parseArrayTestCase(validator);
+    }
+
+    /**
+     * Returns the character at the given position.
+     *
+     * @param index The position of the character, before the end of the line.
+     * @return The character, or for bytes the unsigned byte value.
+     */
+    abstract int charAt(int index);
+
+    /**
+     * Consumes the euro sign at the current position.
+     *
+     * @return true if the euro sign was there and has been consumed.
+     */
+    abstract boolean consumeEuroSign();
+
+    final KnapsackProblemInstance parseTestCase(TestCaseValidator validator) {
+        if (!parseMaxWeight(validator)) {
+            return null;
+        }
+        List<Item> items = new ArrayList<>();
+        do {
+            if (!parseItem()) {
+                return null;
+            }
+            // Once there are too many items the test case is going to be rejected, so the rest is only checked for its shape
+            if (validator == null || validator.addItem(itemWeight, itemCost)) {
+                items.add(new Item(itemIndex, itemWeight, itemCost));
+            }
+        } while (skipWhitespace() && position < end);
+        if (position != end) {
+            return null;
+        }
+        return new KnapsackProblemInstance(maxWeight, items);
+    }
+
+    final ArrayKnapsackProblemInstance parseArrayTestCase(TestCaseValidator validator) {
+        if (!parseMaxWeight(validator)) {
+            return null;
+        }
+        int size = 0;
+        int[] indices = new int[INITIAL_ARRAY_LENGTH];
+        int[] weights = new int[INITIAL_ARRAY_LENGTH];
+        int[] costs = new int[INITIAL_ARRAY_LENGTH];
+        do {
+            if (!parseItem()) {
+                return null;
+            }
+            // Items the validator rejects are not kept, which also keeps weights too large to scale out of the arrays
+            if (validator.addItem(itemWeight, itemCost)) {
+                if (size == indices.length) {
+                    indices = Arrays.copyOf(indices, 2 * size);
+                    weights = Arrays.copyOf(weights, 2 * size);
+                    costs = Arrays.copyOf(costs, 2 * size);
+                }
+                indices[size] = itemIndex;
+                weights[size] = FixedPoint.scaleWeight(itemWeight);
+                costs[size] = FixedPoint.scaleCost(itemCost);
+                size++;
+            }
+        } while (skipWhitespace() && position < end);
+        if (position != end) {
+            return null;
+        }
+        return new ArrayKnapsackProblemInstance(maxWeight, size, indices, weights, costs);
+    }
+
+    /**
+     * Parses the maximum weight and the colon that separates it from the items into {@link #maxWeight}.
+     *
+     * @param validator The validator to feed with the maximum weight, or null.
+     * @return true if the start of the line is in the well-formed shape.
+     */
+    private boolean parseMaxWeight(TestCaseValidator validator) {
+        skipWhitespace();
+        maxWeight = parseInt();
+        if (maxWeight < 0) {
+            return false;
+        }
+        skipWhitespace();
+        if (!consume(':')) {
+            return false;
+        }
+        skipWhitespace();
+        if (validator != null) {
+            validator.setMaxWeight(maxWeight);
+        }
+        return true;
+    }
+
+    /**
+     * Parses an item such as {@code (1,53.38,€45)} into {@link #itemIndex}, {@link #itemWeight} and {@link #itemCost}.
+     *
+     * @return true if the item is in the well-formed shape.
+     */
+    private boolean parseItem() {
+        if (!consume('(')) {
+            return false;
+        }
+        itemIndex = parseInt();
+        if (itemIndex < 0 || !consume(',')) {
+            return false;
+        }
+        itemWeight = parseDecimal();
+        if (itemWeight < 0 || !consume(',') || !consumeEuroSign()) {
+            return false;
+        }
+        itemCost = parseInt();
+        return itemCost >= 0 && consume(')');
+    }
+
+    /**
+     * Parses an unsigned integer of at most {@link #MAX_INT_DIGITS} digits.
+     *
+     * @return The integer, or -1 if there are no digits or too many.
+     */
+    private int parseInt() {
+        int start = position;
+        int value = 0;
+        while (position < end && isDigit(charAt(position))) {
+            value = value * 10 + (charAt(position++) - '0');
+        }
+        int digits = position - start;
+        return digits == 0 || digits > MAX_INT_DIGITS ? -1 : value;
+    }
+
+    /**
+     * Parses an unsigned decimal such as {@code 53.38} or {@code 10}.
+     * The digits are collected into a long and divided by an exact power of ten, which gives the same
+     * correctly rounded double as {@link Double#parseDouble(String)} as long as there are at most
+     * {@link #MAX_DECIMAL_DIGITS} digits.
+     *
+     * @return The decimal, or -1 if it is missing or has too many digits.
+     */
+    private double parseDecimal() {
+        int start = position;
+        long mantissa = 0;
+        while (position < end && isDigit(charAt(position))) {
+            mantissa = mantissa * 10 + (charAt(position++) - '0');
+        }
+        int integerDigits = position - start;
+        int fractionDigits = 0;
+        if (integerDigits > 0 && consume('.')) {
+            int fractionStart = position;
+            while (position < end && isDigit(charAt(position))) {
+                mantissa = mantissa * 10 + (charAt(position++) - '0');
+            }
+            fractionDigits = position - fractionStart;
+        }
+        if (integerDigits == 0 || integerDigits + fractionDigits > MAX_DECIMAL_DIGITS) {
+            return -1;
+        }
+        return mantissa / POWERS_OF_TEN[fractionDigits];
+    }
+
+    /**
+     * Skips spaces and tabs.
+     *
+     * @return true if at least one character was skipped.
+     */
+    private boolean skipWhitespace() {
+        int start = position;
+        while (position < end && (charAt(position) == ' ' || charAt(position) == '\t')) {
+            position++;
+        }
+        return position > start;
+    }
+
+    boolean consume(int expected) {
+        if (position < end && charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parser over the characters of a string.
+     */
+    private static final class StringLineParser extends LineParser {
+        private final String line;
+
+        private StringLineParser(String line) {
+            super(0, line.length());
+            this.line = line;
+        }
+
+        @Override
+        int charAt(int index) {
+            return line.charAt(index);
+        }
+
+        @Override
+        boolean consumeEuroSign() {
+            return consume('€');
+        }
+    }
+
+    /**
+     * Parser over the UTF-8 bytes of a buffer, using absolute indices so the buffer position is left untouched.
+     */
+    private static final class ByteLineParser extends LineParser {
+        private final ByteBuffer buffer;
+
+        private ByteLineParser(ByteBuffer buffer, int start, int end) {
+            super(start, end);
+            this.buffer = buffer;
+        }
+
+        @Override
+        int charAt(int index) {
+            return buffer.get(index) & 0xFF;
+        }
+
+        @Override
+        boolean consumeEuroSign() {
+            if (end - position < EURO_SIGN_UTF8.length) {
+                return false;
+            }
+            for (int i = 0; i < EURO_SIGN_UTF8.length; i++) {
+                if (buffer.get(position + i) != EURO_SIGN_UTF8[i]) {
+                    return false;
+                }
+            }
+            position += EURO_SIGN_UTF8.length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.mobiquity.file;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * The ParseEvent class is the JDK Flight Recorder event of parsing a single test case line, with its validation when
+ * the line is validated while it is parsed. Like the solve event, it is only recorded for lines that take at least
+ * a millisecond unless the threshold is lowered, for example {@code com.mobiquity.ParseTestCase#threshold=0 ms}.
+ */
+@Name("com.mobiquity.ParseTestCase")
+@Label("Knapsack Parse Test Case")
+@Category({"Knapsack", "Parser"})
+@Description("Parsing and validating a single test case line")
+@StackTrace(false)
+@Threshold("1 ms")
+final class ParseEvent extends Event {
+
+    @Label("Line Length")
+    @Description("The length of the line in characters, or in bytes when it is read from a file")
+    int lineLength;
+
+    @Label("Well Formed")
+    @Description("Whether the line was read by the single-pass parser rather than the lenient split-based parsing")
+    boolean wellFormed;
+
+    @Label("Item Count")
+    int itemCount;
+
+    @Label("Capacity")
+    @Description("The maximum weight of the package")
+    int capacity;
+
+    @Label("Parse Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long parseDuration;
+
+    @Label("Validate Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long validateDuration;
+}
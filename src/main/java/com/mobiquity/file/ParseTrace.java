@@ -0,0 +1,62 @@
+package com.mobiquity.file;
+
+import com.mobiquity.metrics.PackerMetrics;
+
+/**
+ * The ParseTrace class times the parse and validate stages of a single line for both the metrics and the flight
+ * recorder event, so that the clock is read once per stage and only if either of them is enabled.
+ */
+final class ParseTrace {
+    private final ParseEvent event = new ParseEvent();
+    private final boolean timed;
+    private final long start;
+    private long parsed;
+    private long validated;
+
+    /**
+     * Starts tracing a line.
+     */
+    ParseTrace() {
+        event.begin();
+        timed = PackerMetrics.ENABLED || event.isEnabled();
+        start = timed ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Marks the end of the parse stage.
+     */
+    void parsed() {
+        parsed = timed ? System.nanoTime() : 0L;
+        validated = parsed;
+        PackerMetrics.recordLatency(PackerMetrics.Stage.PARSE, start, parsed);
+    }
+
+    /**
+     * Marks the end of the validate stage, which starts at the end of the parse stage.
+     */
+    void validated() {
+        validated = timed ? System.nanoTime() : 0L;
+        PackerMetrics.recordLatency(PackerMetrics.Stage.VALIDATE, parsed, validated);
+    }
+
+    /**
+     * Commits the flight recorder event of the line, if a recording wants it.
+     *
+     * @param lineLength The length of the line.
+     * @param wellFormed Whether the line was read by the single-pass parser.
+     * @param itemCount The number of items of the test case.
+     * @param capacity The maximum weight of the test case.
+     */
+    void commit(int lineLength, boolean wellFormed, int itemCount, int capacity) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.lineLength = lineLength;
+            event.wellFormed = wellFormed;
+            event.itemCount = itemCount;
+            event.capacity = capacity;
+            event.parseDuration = parsed - start;
+            event.validateDuration = validated - parsed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.mobiquity.file;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.model.KnapsackProblemInstance;
+
+/**
+ * This interface represents an operation that is applied to each test case as it is read from a file.
+ */
+@FunctionalInterface
+public interface TestCaseConsumer {
+
+    /**
+     * Performs this operation on the given test case.
+     *
+     * @param testCase The test case that has been read.
+     * @throws APIException If the test case cannot be processed.
+     */
+    void accept(KnapsackProblemInstance testCase) throws APIException;
+}
@@ -0,0 +1,91 @@
+package com.mobiquity.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The Histogram class counts non-negative values, such as latencies in nanoseconds or byte counts, in buckets of
+ * powers of two. Recording a value is a few adds on striped counters, so it can be done from many threads on the hot
+ * path without contention. Percentiles are estimated as the upper bound of the bucket they fall into, which is within
+ * a factor of two of the exact value.
+ */
+public final class Histogram {
+    // Bucket 0 holds 0, bucket b holds the values from 2^(b-1) to 2^b - 1
+    private static final int BUCKET_COUNT = Long.SIZE;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public Histogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value to record. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long recorded = Math.max(value, 0);
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(recorded)].increment();
+        sum.add(recorded);
+        max.accumulate(recorded);
+    }
+
+    /**
+     * Returns the count, sum, maximum and estimated percentiles of the values recorded so far.
+     * Values recorded while the snapshot is taken may be partly included.
+     *
+     * @return A snapshot of the histogram.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long maximum = max.get();
+        return new HistogramSnapshot(count, sum.sum(), maximum, percentile(counts, count, maximum, 0.5),
+                percentile(counts, count, maximum, 0.9), percentile(counts, count, maximum, 0.99));
+    }
+
+    /**
+     * Removes all recorded values.
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls into, capped at the maximum.
+     *
+     * @param counts The count of every bucket.
+     * @param count The total count.
+     * @param maximum The largest recorded value.
+     * @param quantile The percentile as a fraction between 0 and 1.
+     * @return The estimated percentile, or 0 if nothing has been recorded.
+     */
+    private static long percentile(long[] counts, long count, long maximum, double quantile) {
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank && seen > 0) {
+                // For the last bucket this wraps around to Long.MAX_VALUE
+                return Math.min((1L << bucket) - 1, maximum);
+            }
+        }
+        return 0;
+    }
+}
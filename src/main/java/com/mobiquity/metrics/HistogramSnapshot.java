@@ -0,0 +1,96 @@
+package com.mobiquity.metrics;
+
+/**
+ * The HistogramSnapshot class holds the state of a {@link Histogram} at one point in time.
+ * It is exposed over JMX as composite data, one item per getter.
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final long sum;
+    private final long max;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+
+    /**
+     * Constructs a snapshot.
+     *
+     * @param count The number of recorded values.
+     * @param sum The sum of the recorded values.
+     * @param max The largest recorded value.
+     * @param p50 The estimated median.
+     * @param p90 The estimated 90th percentile.
+     * @param p99 The estimated 99th percentile.
+     */
+    public HistogramSnapshot(long count, long sum, long max, long p50, long p90, long p99) {
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return The sum.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return The maximum, or 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return The mean, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Returns the estimated median.
+     *
+     * @return The upper bound of the bucket holding the median.
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns the estimated 90th percentile.
+     *
+     * @return The upper bound of the bucket holding the 90th percentile.
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * Returns the estimated 99th percentile.
+     *
+     * @return The upper bound of the bucket holding the 99th percentile.
+     */
+    public long getP99() {
+        return p99;
+    }
+}
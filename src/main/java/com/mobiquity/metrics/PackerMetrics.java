@@ -0,0 +1,281 @@
+package com.mobiquity.metrics;
+
+import com.mobiquity.util.ConfigProperties;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PackerMetrics class collects the metrics of the packer: the latency of every stage a test case goes through,
+ * the dynamic programming cells filled, the bytes allocated per solve, the solution cache hits and misses,
+ * and the failures per type of exception. They are exposed over JMX through {@link PackerMetricsMXBean}.
+ * <p>
+ * Metrics are off unless the METRICS_ENABLED property is true. The flag is a constant, so when it is off every
+ * recording method is an empty call that the JIT compiler removes, and the hot path does not even read the clock.
+ * The instrumented code follows one pattern:
+ * <pre>
+ * long start = PackerMetrics.startTime();
+ * // parse the line
+ * long parsed = PackerMetrics.recordLatency(PackerMetrics.Stage.PARSE, start);
+ * // validate the test case
+ * PackerMetrics.recordLatency(PackerMetrics.Stage.VALIDATE, parsed);
+ * </pre>
+ */
+public final class PackerMetrics {
+    // Whether metrics are collected, from the METRICS_ENABLED property
+    public static final boolean ENABLED = Boolean.parseBoolean(ConfigProperties.getProperty("METRICS_ENABLED", "false"));
+    // The name the metrics are registered under with the platform MBean server
+    public static final String OBJECT_NAME = "com.mobiquity:type=PackerMetrics";
+
+    /**
+     * The stages a test case goes through, each with its own latency histogram.
+     */
+    public enum Stage {
+        PARSE, VALIDATE, SOLVE, FORMAT
+    }
+
+    private static final Histogram[] STAGE_LATENCIES = new Histogram[Stage.values().length];
+    private static final Histogram ALLOCATED_BYTES = new Histogram();
+    private static final LongAdder DYNAMIC_PROGRAMMING_CELLS = new LongAdder();
+    private static final LongAdder CACHE_HITS = new LongAdder();
+    private static final LongAdder CACHE_MISSES = new LongAdder();
+    private static final ConcurrentMap<String, LongAdder> ERRORS = new ConcurrentHashMap<>();
+    // Measures the bytes allocated by a thread, or null if the JVM cannot
+    private static final com.sun.management.ThreadMXBean ALLOCATION_COUNTER = ENABLED ? allocationCounter() : null;
+    private static final PackerMetricsMXBean MX_BEAN = new MXBean();
+
+    static {
+        for (Stage stage : Stage.values()) {
+            STAGE_LATENCIES[stage.ordinal()] = new Histogram();
+        }
+        if (ENABLED) {
+            register();
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private PackerMetrics() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Returns the start time of a stage.
+     *
+     * @return The current value of {@link System#nanoTime()}, or 0 if metrics are disabled.
+     */
+    public static long startTime() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the latency of a stage that started at the given time.
+     *
+     * @param stage The stage that has ended.
+     * @param startTime The start time of the stage, from {@link #startTime()} or from the previous stage.
+     * @return The end time of the stage, which is the start time of the next one, or 0 if metrics are disabled.
+     */
+    public static long recordLatency(Stage stage, long startTime) {
+        if (!ENABLED) {
+            return 0L;
+        }
+        long endTime = System.nanoTime();
+        STAGE_LATENCIES[stage.ordinal()].record(endTime - startTime);
+        return endTime;
+    }
+
+    /**
+     * Records the latency of a stage from its start and end times, for code that reads the clock itself because it
+     * also needs the times for something else.
+     *
+     * @param stage The stage that has ended.
+     * @param startTime The start time of the stage.
+     * @param endTime The end time of the stage.
+     */
+    public static void recordLatency(Stage stage, long startTime, long endTime) {
+        if (ENABLED) {
+            STAGE_LATENCIES[stage.ordinal()].record(endTime - startTime);
+        }
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far, to be passed to
+     * {@link #recordAllocation(long)} once the solve is done.
+     *
+     * @return The allocated bytes, or 0 if metrics are disabled or the JVM cannot measure them.
+     */
+    public static long allocatedBytes() {
+        return ENABLED && ALLOCATION_COUNTER != null ? ALLOCATION_COUNTER.getCurrentThreadAllocatedBytes() : 0L;
+    }
+
+    /**
+     * Records the bytes the current thread has allocated during a solve.
+     *
+     * @param allocatedBytesBefore The value of {@link #allocatedBytes()} before the solve.
+     */
+    public static void recordAllocation(long allocatedBytesBefore) {
+        if (ENABLED && ALLOCATION_COUNTER != null) {
+            ALLOCATED_BYTES.record(ALLOCATION_COUNTER.getCurrentThreadAllocatedBytes() - allocatedBytesBefore);
+        }
+    }
+
+    /**
+     * Records dynamic programming cells filled by a solver.
+     *
+     * @param cells The number of cells.
+     */
+    public static void recordDynamicProgrammingCells(long cells) {
+        if (ENABLED) {
+            DYNAMIC_PROGRAMMING_CELLS.add(cells);
+        }
+    }
+
+    /**
+     * Records a lookup in the solution cache.
+     *
+     * @param hit Whether the solution was cached.
+     */
+    public static void recordCacheLookup(boolean hit) {
+        if (ENABLED) {
+            (hit ? CACHE_HITS : CACHE_MISSES).increment();
+        }
+    }
+
+    /**
+     * Records a failure by the type of its exception.
+     *
+     * @param error The exception that failed the pack call.
+     */
+    public static void recordError(Throwable error) {
+        if (ENABLED) {
+            ERRORS.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Returns the latencies of a stage.
+     *
+     * @param stage The stage.
+     * @return A snapshot of the latencies in nanoseconds.
+     */
+    public static HistogramSnapshot latency(Stage stage) {
+        return STAGE_LATENCIES[stage.ordinal()].snapshot();
+    }
+
+    /**
+     * Returns the management interface of the metrics, the same object that is registered over JMX.
+     *
+     * @return The metrics as an MXBean.
+     */
+    public static PackerMetricsMXBean mxBean() {
+        return MX_BEAN;
+    }
+
+    /**
+     * Clears all metrics.
+     */
+    public static void reset() {
+        for (Histogram histogram : STAGE_LATENCIES) {
+            histogram.reset();
+        }
+        ALLOCATED_BYTES.reset();
+        DYNAMIC_PROGRAMMING_CELLS.reset();
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+        ERRORS.clear();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, unless something is registered under their name already.
+     */
+    private static void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(MX_BEAN, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Finds the thread MXBean that measures allocated bytes and enables the measurement.
+     *
+     * @return The thread MXBean, or null if the JVM cannot measure allocated bytes.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocationCounter
+                && allocationCounter.isThreadAllocatedMemorySupported()) {
+            allocationCounter.setThreadAllocatedMemoryEnabled(true);
+            return allocationCounter;
+        }
+        return null;
+    }
+
+    /**
+     * The implementation of the management interface, reading the static metrics.
+     */
+    private static final class MXBean implements PackerMetricsMXBean {
+        @Override
+        public HistogramSnapshot getParseLatency() {
+            return latency(Stage.PARSE);
+        }
+
+        @Override
+        public HistogramSnapshot getValidateLatency() {
+            return latency(Stage.VALIDATE);
+        }
+
+        @Override
+        public HistogramSnapshot getSolveLatency() {
+            return latency(Stage.SOLVE);
+        }
+
+        @Override
+        public HistogramSnapshot getFormatLatency() {
+            return latency(Stage.FORMAT);
+        }
+
+        @Override
+        public HistogramSnapshot getAllocatedBytesPerSolve() {
+            return ALLOCATED_BYTES.snapshot();
+        }
+
+        @Override
+        public long getDynamicProgrammingCells() {
+            return DYNAMIC_PROGRAMMING_CELLS.sum();
+        }
+
+        @Override
+        public long getCacheHits() {
+            return CACHE_HITS.sum();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            return CACHE_MISSES.sum();
+        }
+
+        @Override
+        public Map<String, Long> getErrorCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            ERRORS.forEach((type, count) -> counts.put(type, count.sum()));
+            return counts;
+        }
+
+        @Override
+        public void reset() {
+            PackerMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.mobiquity.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link PackerMetrics}, registered with the platform MBean server under
+ * {@value PackerMetrics#OBJECT_NAME} when metrics are enabled, so that any JMX client can read it.
+ * Latencies are in nanoseconds.
+ */
+public interface PackerMetricsMXBean {
+
+    /**
+     * Returns the latency of parsing a test case line, without its validation.
+     *
+     * @return A snapshot of the parse latencies.
+     */
+    HistogramSnapshot getParseLatency();
+
+    /**
+     * Returns the latency of validating a parsed test case.
+     *
+     * @return A snapshot of the validation latencies.
+     */
+    HistogramSnapshot getValidateLatency();
+
+    /**
+     * Returns the latency of sorting the items of a test case and choosing the package.
+     *
+     * @return A snapshot of the solve latencies.
+     */
+    HistogramSnapshot getSolveLatency();
+
+    /**
+     * Returns the latency of formatting a chosen package as a solution string.
+     *
+     * @return A snapshot of the format latencies.
+     */
+    HistogramSnapshot getFormatLatency();
+
+    /**
+     * Returns the bytes allocated by the solving thread during each solve, format included.
+     *
+     * @return A snapshot of the allocated bytes per solve, empty if the JVM cannot measure them.
+     */
+    HistogramSnapshot getAllocatedBytesPerSolve();
+
+    /**
+     * Returns the number of dynamic programming cells filled by the table and rolling row solvers.
+     *
+     * @return The number of cells.
+     */
+    long getDynamicProgrammingCells();
+
+    /**
+     * Returns the number of test cases answered from the solution cache.
+     *
+     * @return The number of cache hits.
+     */
+    long getCacheHits();
+
+    /**
+     * Returns the number of test cases that had to be solved because their solution was not cached.
+     *
+     * @return The number of cache misses.
+     */
+    long getCacheMisses();
+
+    /**
+     * Returns the number of failed pack calls per type of exception, such as MaxItemCountException.
+     *
+     * @return The error counts keyed by the simple name of the exception class.
+     */
+    Map<String, Long> getErrorCounts();
+
+    /**
+     * Clears all metrics.
+     */
+    void reset();
+}
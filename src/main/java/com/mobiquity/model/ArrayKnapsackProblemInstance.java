@@ -0,0 +1,191 @@
+package com.mobiquity.model;
+
+import com.mobiquity.util.FixedPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class represents an instance of the knapsack problem as parallel arrays of primitives instead of a list of
+ * {@link Item} objects: the indices, the weights and the costs of the items, with the weights and costs already scaled
+ * to the fixed-point integers the solvers work with (see {@link FixedPoint}).
+ * Reading an item is then an array access instead of a list lookup and a call on a boxed record,
+ * and a test case takes four objects however many items it has.
+ * <p>
+ * The arrays may be longer than the number of items, so that a parser can fill them as it goes without trimming them;
+ * only the first {@link #size()} elements belong to the instance. The arrays are not copied, so they must not be
+ * changed once the instance has been constructed.
+ * <p>
+ * Weights with more decimals than the WEIGHT_SCALE_FACTOR resolves are rounded, as the solvers round them anyway.
+ * For every other weight the cost-to-weight order of the items is exactly that of {@link Item#compareTo(Item)}, so
+ * both representations of a test case have the same solution.
+ */
+public final class ArrayKnapsackProblemInstance {
+    private final int maxWeight;
+    private final int size;
+    private final int[] indices;
+    private final int[] weights;
+    private final int[] costs;
+
+    /**
+     * Constructs an instance from arrays filled with the items.
+     *
+     * @param maxWeight The maximum weight that the package can take.
+     * @param size The number of items.
+     * @param indices The indices of the items.
+     * @param weights The weights of the items, in units of 1 / WEIGHT_SCALE_FACTOR.
+     * @param costs The costs of the items, in units of 1 / COST_SCALE_FACTOR.
+     * @throws IllegalArgumentException If the size is negative or an array is shorter than the size.
+     */
+    public ArrayKnapsackProblemInstance(int maxWeight, int size, int[] indices, int[] weights, int[] costs) {
+        if (size < 0 || indices.length < size || weights.length < size || costs.length < size) {
+            throw new IllegalArgumentException("Arrays shorter than the number of items: " + size);
+        }
+        this.maxWeight = maxWeight;
+        this.size = size;
+        this.indices = indices;
+        this.weights = weights;
+        this.costs = costs;
+    }
+
+    /**
+     * Converts an instance with a list of items into arrays, scaling the weights and costs.
+     *
+     * @param knapsackProblemInstance The instance to convert.
+     * @return The instance as arrays.
+     * @throws ArithmeticException If a scaled weight or cost does not fit into an int.
+     */
+    public static ArrayKnapsackProblemInstance from(KnapsackProblemInstance knapsackProblemInstance) {
+        List<Item> itemList = knapsackProblemInstance.itemList();
+        int size = itemList.size();
+        int[] indices = new int[size];
+        int[] weights = new int[size];
+        int[] costs = new int[size];
+        for (int i = 0; i < size; i++) {
+            Item item = itemList.get(i);
+            indices[i] = item.index();
+            weights[i] = item.scaledWeight();
+            costs[i] = item.scaledCost();
+        }
+        return new ArrayKnapsackProblemInstance(knapsackProblemInstance.maxWeight(), size, indices, weights, costs);
+    }
+
+    /**
+     * Converts this instance into one with a list of items, for code that works on {@link KnapsackProblemInstance}.
+     *
+     * @return The instance with a list of items, whose weights and costs are scaled back.
+     */
+    public KnapsackProblemInstance toKnapsackProblemInstance() {
+        List<Item> itemList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            itemList.add(new Item(indices[i], weight(i), cost(i)));
+        }
+        return new KnapsackProblemInstance(maxWeight, itemList);
+    }
+
+    /**
+     * Returns the maximum weight that the package can take.
+     *
+     * @return The maximum weight, not scaled.
+     */
+    public int maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the number of items.
+     *
+     * @return The number of items.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of an item.
+     *
+     * @param i The position of the item in input order.
+     * @return The index of the item.
+     */
+    public int index(int i) {
+        return indices[i];
+    }
+
+    /**
+     * Returns the weight of an item as a fixed-point integer.
+     *
+     * @param i The position of the item in input order.
+     * @return The weight in units of 1 / WEIGHT_SCALE_FACTOR.
+     */
+    public int scaledWeight(int i) {
+        return weights[i];
+    }
+
+    /**
+     * Returns the cost of an item as a fixed-point integer.
+     *
+     * @param i The position of the item in input order.
+     * @return The cost in units of 1 / COST_SCALE_FACTOR.
+     */
+    public int scaledCost(int i) {
+        return costs[i];
+    }
+
+    /**
+     * Returns the weight of an item, scaled back. For a weight with no more decimals than the WEIGHT_SCALE_FACTOR
+     * resolves, this is exactly the double the weight was parsed into.
+     *
+     * @param i The position of the item in input order.
+     * @return The weight.
+     */
+    public double weight(int i) {
+        return weights[i] / (double) FixedPoint.WEIGHT_SCALE_FACTOR;
+    }
+
+    /**
+     * Returns the cost of an item, scaled back.
+     *
+     * @param i The position of the item in input order.
+     * @return The cost.
+     */
+    public double cost(int i) {
+        return costs[i] / (double) FixedPoint.COST_SCALE_FACTOR;
+    }
+
+    /**
+     * Checks if this instance has the same maximum weight and the same items, in the same order, as another object.
+     *
+     * @param obj The object to be compared with this instance.
+     * @return true if this instance is equal to the obj argument; false otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ArrayKnapsackProblemInstance other)) {
+            return false;
+        }
+        return maxWeight == other.maxWeight && size == other.size
+                && Arrays.equals(indices, 0, size, other.indices, 0, size)
+                && Arrays.equals(weights, 0, size, other.weights, 0, size)
+                && Arrays.equals(costs, 0, size, other.costs, 0, size);
+    }
+
+    /**
+     * Returns a hash code value for this instance, from its maximum weight and its items.
+     *
+     * @return a hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        int result = maxWeight;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + indices[i];
+            result = 31 * result + weights[i];
+            result = 31 * result + costs[i];
+        }
+        return result;
+    }
+}
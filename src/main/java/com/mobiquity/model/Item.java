@@ -1,5 +1,7 @@
 package com.mobiquity.model;
 
+import com.mobiquity.util.FixedPoint;
+
 /**
  * This class represents an item that can be put into the package.
  * It includes the index, weight, and cost of the item.
@@ -14,6 +16,24 @@ public record Item(int index, double weight, double cost) implements Comparable<
      * @param cost The cost of the item.
      */
 
+    /**
+     * Returns the weight of this item as a fixed-point integer, see {@link FixedPoint#scaleWeight(double)}.
+     *
+     * @return The weight in units of 1 / WEIGHT_SCALE_FACTOR.
+     */
+    public int scaledWeight() {
+        return FixedPoint.scaleWeight(weight);
+    }
+
+    /**
+     * Returns the cost of this item as a fixed-point integer, see {@link FixedPoint#scaleCost(double)}.
+     *
+     * @return The cost in units of 1 / COST_SCALE_FACTOR.
+     */
+    public int scaledCost() {
+        return FixedPoint.scaleCost(cost);
+    }
+
     /**
      * Compares this item with another item based on their cost-to-weight ratio.
      *
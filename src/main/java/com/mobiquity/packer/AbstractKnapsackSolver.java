@@ -0,0 +1,229 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.metrics.PackerMetrics;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.util.FixedPoint;
+
+import java.util.Arrays;
+
+/**
+ * The AbstractKnapsackSolver class holds what all solvers share: the single item rule, sorting and scaling the items,
+ * removing the items that cannot be in the package, dividing the weights by their greatest common divisor, and
+ * formatting the chosen items as a solution string. Subclasses only choose among the remaining items, from the same
+ * sorted arrays whether the instance holds a list of items or is an {@link ArrayKnapsackProblemInstance}, and are not
+ * called at all when those items all fit into the package.
+ * All scratch arrays, including those of the subclasses, come from the {@link SolverWorkspace} of the solving thread,
+ * so that a solve allocates little more than its solution string.
+ */
+abstract class AbstractKnapsackSolver implements KnapsackEngine {
+    // Most memory the scratch arrays of one solve may take for the solver to be picked automatically
+    static final long MAX_SCRATCH_BYTES = 64L << 20;
+
+    @Override
+    public final long estimateOperations(KnapsackProblemInstance knapsackProblemInstance) {
+        return estimateOperations(knapsackProblemInstance.itemList().size(), knapsackProblemInstance.maxWeight());
+    }
+
+    @Override
+    public final long estimateOperations(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+        return estimateOperations(arrayKnapsackProblemInstance.size(), arrayKnapsackProblemInstance.maxWeight());
+    }
+
+    /**
+     * Estimates the number of basic operations this solver needs for an instance of a given size,
+     * see {@link KnapsackEngine#estimateOperations(KnapsackProblemInstance)}.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return The estimated number of operations, or {@link Long#MAX_VALUE} if the solver cannot solve the instance.
+     */
+    abstract long estimateOperations(int itemCount, int maxWeight);
+
+    /**
+     * Solves the knapsack problem for a given KnapsackProblemInstance.
+     * If there is only one item in the package, it returns "-".
+     *
+     * @param knapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return A string representing the optimal solution. It contains the indices of the items to be included in the package,
+     *         separated by commas. If there is only one item in the package, it returns "-".
+     */
+    @Override
+    public final String solve(KnapsackProblemInstance knapsackProblemInstance) {
+        // If there is only one item in the package, return "-"
+        if (knapsackProblemInstance.itemList().size() == 1) {
+            return "-";
+        }
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        boolean timed = PackerMetrics.ENABLED || event.isEnabled();
+        long allocatedBytes = PackerMetrics.allocatedBytes();
+        long start = timed ? System.nanoTime() : 0L;
+        SolverWorkspace workspace = SolverWorkspace.current();
+        SortedItems items = new SortedItems(knapsackProblemInstance, workspace);
+        return solveSorted(items, workspace, event, timed, start, allocatedBytes);
+    }
+
+    /**
+     * Solves the knapsack problem for a given ArrayKnapsackProblemInstance, straight from its arrays.
+     * If there is only one item in the package, it returns "-".
+     *
+     * @param arrayKnapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return A string representing the optimal solution, the same as for the instance with a list of items.
+     */
+    @Override
+    public final String solve(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+        // If there is only one item in the package, return "-"
+        if (arrayKnapsackProblemInstance.size() == 1) {
+            return "-";
+        }
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        boolean timed = PackerMetrics.ENABLED || event.isEnabled();
+        long allocatedBytes = PackerMetrics.allocatedBytes();
+        long start = timed ? System.nanoTime() : 0L;
+        SolverWorkspace workspace = SolverWorkspace.current();
+        SortedItems items = new SortedItems(arrayKnapsackProblemInstance, workspace);
+        return solveSorted(items, workspace, event, timed, start, allocatedBytes);
+    }
+
+    /**
+     * Removes the items that cannot be in the package, compresses the weights of the rest, chooses among them and
+     * formats them, recording the solve and format stages in the
+     * metrics and every phase in the flight recorder event. The clock is only read if either of them is enabled.
+     *
+     * @param items The items sorted on their cost-to-weight ratio, with scaled weights and costs.
+     * @param workspace The workspace of the solving thread, for scratch arrays.
+     * @param event The flight recorder event of the solve, begun before the items were sorted.
+     * @param timed Whether the metrics or the event need the durations.
+     * @param start The start time of the solve, before the items were sorted.
+     * @param allocatedBytes The bytes allocated by the thread before the solve.
+     * @return A string representing the optimal solution.
+     */
+    private String solveSorted(SortedItems items, SolverWorkspace workspace, SolveEvent event, boolean timed,
+                               long start, long allocatedBytes) {
+        long sorted = timed ? System.nanoTime() : 0L;
+        int itemCount = items.size();
+        int scaledCapacity = items.capacity;
+        boolean allFit = items.removeRedundantItems(workspace);
+        int weightDivisor = allFit ? 1 : items.compressWeights();
+        boolean[] selected = allFit ? selectAll(items, workspace) : selectItems(items, workspace);
+        long solved = timed ? System.nanoTime() : 0L;
+        String solution = formatSolution(items, selected, workspace);
+        long formatted = timed ? System.nanoTime() : 0L;
+        PackerMetrics.recordLatency(PackerMetrics.Stage.SOLVE, start, solved);
+        PackerMetrics.recordLatency(PackerMetrics.Stage.FORMAT, solved, formatted);
+        PackerMetrics.recordAllocation(allocatedBytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.solver = name();
+            event.itemCount = itemCount;
+            event.candidateCount = items.size();
+            event.capacity = scaledCapacity / FixedPoint.WEIGHT_SCALE_FACTOR;
+            event.scaledCapacity = scaledCapacity;
+            event.weightDivisor = weightDivisor;
+            event.tableCells = allFit ? 0L : (items.size() + 1L) * (items.capacity + 1L);
+            event.sortDuration = sorted - start;
+            event.selectDuration = solved - sorted;
+            event.formatDuration = formatted - solved;
+            event.commit();
+        }
+        return solution;
+    }
+
+    /**
+     * Chooses all items, for when they fit into the package together.
+     *
+     * @param items The sorted items.
+     * @param workspace The workspace of the solving thread, for scratch arrays.
+     * @return An array that is true for every position in the sorted order.
+     */
+    private static boolean[] selectAll(SortedItems items, SolverWorkspace workspace) {
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, items.size());
+        Arrays.fill(selected, 0, items.size(), true);
+        return selected;
+    }
+
+    /**
+     * Chooses the items of the optimal package.
+     *
+     * @param items The items sorted on their cost-to-weight ratio, with scaled weights and costs, without the items
+     *              that cannot be in the package and with the weights and capacity divided by the greatest common
+     *              divisor of the weights. There is at least one item, and they do not all fit together.
+     * @param workspace The workspace of the solving thread, for scratch arrays.
+     * @return For every position in the sorted order, whether that item is in the package. The array can be longer
+     *         than the number of items.
+     */
+    abstract boolean[] selectItems(SortedItems items, SolverWorkspace workspace);
+
+    /**
+     * Checks if a scratch array takes at most {@link #MAX_SCRATCH_BYTES} and is short enough for the
+     * {@link SolverWorkspace} to keep it between solves, so that a solver picked automatically allocates nothing for it
+     * once the workspace has grown.
+     *
+     * @param length The number of elements of the array.
+     * @param elementBytes The size of an element in bytes.
+     * @return true if the array fits.
+     */
+    static boolean fitsWorkspace(long length, int elementBytes) {
+        return length <= SolverWorkspace.RETAINED_LENGTH && length * elementBytes <= MAX_SCRATCH_BYTES;
+    }
+
+    /**
+     * Returns the number of cells of a dynamic programming row over the scaled capacity of an instance,
+     * times the number of items.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return The number of items times the scaled capacity plus one.
+     */
+    static long dynamicProgrammingCells(int itemCount, int maxWeight) {
+        return itemCount * (FixedPoint.scaleCapacity(maxWeight) + 1L);
+    }
+
+    /**
+     * Finds the lightest capacity at which the last row of a dynamic programming table reaches its highest cost.
+     * The row never decreases, so every package of the highest cost that fits into this capacity weighs exactly as much,
+     * and backtracking from it yields the lightest package among those with the highest cost.
+     *
+     * @param lastRow The best cost for every capacity, using all items.
+     * @param offset The position of capacity 0 in the array.
+     * @param capacity The full capacity.
+     * @return The lightest capacity with the same cost as the full capacity.
+     */
+    static int lightestOptimalCapacity(int[] lastRow, int offset, int capacity) {
+        while (capacity > 0 && lastRow[offset + capacity - 1] == lastRow[offset + capacity]) {
+            capacity--;
+        }
+        return capacity;
+    }
+
+    /**
+     * Formats the indices of the selected items as a solution string.
+     *
+     * @param items The sorted items.
+     * @param selected For every position in the sorted order, whether that item is in the package.
+     * @param workspace The workspace of the solving thread, for scratch arrays.
+     * @return The indices sorted and separated by commas, or "-" if no item is included.
+     */
+    static String formatSolution(SortedItems items, boolean[] selected, SolverWorkspace workspace) {
+        int[] indices = workspace.ints(SolverWorkspace.SOLUTION_INDICES, items.size());
+        int count = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (selected[i]) {
+                indices[count++] = items.indices[i];
+            }
+        }
+        // Return result as string
+        if (count == 0) {
+            return "-";
+        }
+        Arrays.sort(indices, 0, count);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(indices[i]).append(",");
+        }
+        sb.deleteCharAt(sb.length() - 1);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The BatchScheduler class solves a batch of test cases on a fork-join pool, dividing the batch by the estimated cost
+ * of its test cases rather than by their number. The sizes of the lines of a file can differ by orders of magnitude,
+ * so a task per line leaves a few threads busy with the large lines long after the others ran out of small ones, and
+ * the many small lines cost more in task overhead than in solving.
+ * <p>
+ * Once the batch has been parsed, every test case gets the estimate of the solver that will solve it. The range of
+ * all lines is then split where the estimates add up to half of its total, and each half again, until a range is
+ * cheap enough to be solved in one go or holds a single line. Runs of small lines thus end up in one task, while a
+ * large line gets a task of its own, and since a worker that runs out of tasks steals the oldest one of another,
+ * which is the largest range left, the load evens out even where the estimates are off.
+ * <p>
+ * The solutions are stored by the position of their line, so they come out in input order whichever thread solved
+ * them.
+ */
+final class BatchScheduler {
+    // Least estimated cost of a range worth splitting, so that a task is never cheaper than forking it
+    private static final long MIN_TASK_OPERATIONS = 1L << 16;
+    // Number of tasks per thread the batch is split into at least, so that stealing has work to balance
+    private static final int TASKS_PER_THREAD = 8;
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private BatchScheduler() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Solves a batch of valid test cases on a fork-join pool.
+     *
+     * @param testCases The valid test cases, in input order.
+     * @param pool The pool to solve the test cases on.
+     * @param solver Solves a single test case.
+     * @return The solutions, in input order.
+     * @throws APIException If a test case cannot be solved; if several fail, the exception of the first of them.
+     */
+    static String[] solve(List<ArrayKnapsackProblemInstance> testCases, ForkJoinPool pool,
+                          SolutionCache.Loader<ArrayKnapsackProblemInstance> solver) throws APIException {
+        int count = testCases.size();
+        long[] costs = cumulativeCosts(testCases);
+        String[] solutions = new String[count];
+        APIException[] failures = new APIException[count];
+        if (count > 0) {
+            long threshold = Math.max(MIN_TASK_OPERATIONS, costs[count] / ((long) pool.getParallelism() * TASKS_PER_THREAD));
+            pool.invoke(new SolveTask(testCases, costs, threshold, solver, solutions, failures, 0, count));
+        }
+        for (APIException failure : failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        return solutions;
+    }
+
+    /**
+     * Adds up the estimated costs of the test cases.
+     *
+     * @param testCases The test cases.
+     * @return The estimated cost of the first i test cases at position i, so one more than there are test cases.
+     */
+    private static long[] cumulativeCosts(List<ArrayKnapsackProblemInstance> testCases) {
+        int count = testCases.size();
+        // Capped so that the total cannot overflow, even with a solver that cannot estimate a test case
+        long maxCost = Long.MAX_VALUE / Math.max(1, count);
+        long[] costs = new long[count + 1];
+        for (int i = 0; i < count; i++) {
+            costs[i + 1] = costs[i] + Math.min(estimateCost(testCases.get(i)), maxCost);
+        }
+        return costs;
+    }
+
+    /**
+     * Estimates the cost of solving a test case with the solver it will be solved with.
+     *
+     * @param testCase The test case.
+     * @return The estimated number of operations, at least 1 for the work every test case takes, or
+     *         {@link Long#MAX_VALUE} if no solver can solve it, which then fails when it is solved.
+     */
+    private static long estimateCost(ArrayKnapsackProblemInstance testCase) {
+        try {
+            return Math.max(1, SolverRegistry.solverFor(testCase).estimateOperations(testCase));
+        } catch (IllegalArgumentException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Solves a range of test cases, splitting it in two of about the same estimated cost while it is too expensive
+     * for a single task.
+     */
+    private static final class SolveTask extends RecursiveAction {
+        private final List<ArrayKnapsackProblemInstance> testCases;
+        private final long[] costs;
+        private final long threshold;
+        private final SolutionCache.Loader<ArrayKnapsackProblemInstance> solver;
+        private final String[] solutions;
+        private final APIException[] failures;
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a task for a range of test cases.
+         *
+         * @param testCases All test cases of the batch.
+         * @param costs The cumulative estimated costs of the test cases.
+         * @param threshold The highest estimated cost of a range solved without splitting it.
+         * @param solver Solves a single test case.
+         * @param solutions Receives the solutions by position.
+         * @param failures Receives the exceptions of the test cases that cannot be solved by position.
+         * @param from The position of the first test case of the range.
+         * @param to The position after the last test case of the range.
+         */
+        SolveTask(List<ArrayKnapsackProblemInstance> testCases, long[] costs, long threshold,
+                  SolutionCache.Loader<ArrayKnapsackProblemInstance> solver, String[] solutions,
+                  APIException[] failures, int from, int to) {
+            this.testCases = testCases;
+            this.costs = costs;
+            this.threshold = threshold;
+            this.solver = solver;
+            this.solutions = solutions;
+            this.failures = failures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1 || costs[to] - costs[from] <= threshold) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        solutions[i] = solver.load(testCases.get(i));
+                    } catch (APIException e) {
+                        failures[i] = e;
+                    }
+                }
+                return;
+            }
+            int middle = middle();
+            invokeAll(new SolveTask(testCases, costs, threshold, solver, solutions, failures, from, middle),
+                    new SolveTask(testCases, costs, threshold, solver, solutions, failures, middle, to));
+        }
+
+        /**
+         * Finds the position that splits the range into two of about the same estimated cost.
+         *
+         * @return The position whose cumulative cost is closest to half of the range, leaving at least one test case on
+         *         either side, so that a line costing more than the rest of the range ends up on its own.
+         */
+        private int middle() {
+            long half = costs[from] + (costs[to] - costs[from]) / 2;
+            int low = from + 1;
+            int high = to - 1;
+            while (low < high) {
+                int position = (low + high) >>> 1;
+                if (costs[position] < half) {
+                    low = position + 1;
+                } else {
+                    high = position;
+                }
+            }
+            // The first position reaching half, or the one before it if that is closer
+            if (low > from + 1 && half - costs[low - 1] < costs[low] - half) {
+                return low - 1;
+            }
+            return low;
+        }
+    }
+}
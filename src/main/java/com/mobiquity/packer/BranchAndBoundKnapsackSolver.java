@@ -0,0 +1,170 @@
+package com.mobiquity.packer;
+
+/**
+ * The BranchAndBoundKnapsackSolver class solves the knapsack problem with a depth-first branch and bound search.
+ * Items are decided one by one in their cost-to-weight order, taking an item before leaving it out, so that good packages
+ * are found early. A branch is cut as soon as the fractional relaxation of the remaining items (filling the rest of the
+ * capacity with the best cost-to-weight items, splitting the last one) shows it cannot beat the best package found so far.
+ * No table is allocated, only a few arrays of the size of the item list.
+ * <p>
+ * It picks the same package as the dynamic programming solvers: the highest cost, then the lightest weight, and between
+ * packages of equal cost and weight the one that leaves out the items that come last in the cost-to-weight order.
+ */
+public class BranchAndBoundKnapsackSolver extends AbstractKnapsackSolver {
+
+    @Override
+    public String name() {
+        return "BRANCH_AND_BOUND";
+    }
+
+    /**
+     * Estimates the cost as the worst case of visiting every branch. In practice the bounds cut most of them,
+     * so this only makes the search the cheapest choice for very few items.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return Two to the power of the number of items, or {@link Long#MAX_VALUE} if that overflows.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        return itemCount >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << itemCount;
+    }
+
+    @Override
+    boolean[] selectItems(SortedItems items, SolverWorkspace workspace) {
+        Search search = new Search(items, workspace);
+        search.branch(0, 0, 0);
+        return search.bestPackage;
+    }
+
+    /**
+     * The state of one search: the items, the current branch and the best package found so far.
+     */
+    private static final class Search {
+        private final int size;
+        private final int[] weights;
+        private final int[] costs;
+        private final long capacity;
+        // Positions of the items in the order the fractional bound fills them: weightless items first, then by the
+        // exact ratio of the scaled integers, which rounding can make slightly different from the order of the search
+        private final int[] boundOrder;
+        private final boolean[] currentPackage;
+        private final boolean[] bestPackage;
+        private long bestCost = -1;
+        private long bestWeight;
+
+        private Search(SortedItems items, SolverWorkspace workspace) {
+            this.size = items.size();
+            this.weights = items.weights;
+            this.costs = items.costs;
+            this.capacity = items.capacity;
+            this.currentPackage = workspace.clearedBooleans(SolverWorkspace.CURRENT_PACKAGE, size);
+            this.bestPackage = workspace.clearedBooleans(SolverWorkspace.SELECTED, size);
+            this.boundOrder = workspace.ints(SolverWorkspace.BOUND_ORDER, size);
+            // Stable insertion sort, the items are almost in bound order already
+            for (int i = 0; i < size; i++) {
+                int item = i;
+                int k = i;
+                while (k > 0 && fillsBefore(item, boundOrder[k - 1])) {
+                    boundOrder[k] = boundOrder[k - 1];
+                    k--;
+                }
+                boundOrder[k] = item;
+            }
+        }
+
+        /**
+         * Compares two items in bound order.
+         *
+         * @param a The position of the first item.
+         * @param b The position of the second item.
+         * @return true if the fractional bound fills the first item strictly before the second.
+         */
+        private boolean fillsBefore(int a, int b) {
+            if (weights[a] == 0 || weights[b] == 0) {
+                return weights[a] == 0 && weights[b] != 0;
+            }
+            return (long) costs[a] * weights[b] > (long) costs[b] * weights[a];
+        }
+
+        /**
+         * Decides the item at the given position and, recursively, all items after it.
+         *
+         * @param position The position of the next item to decide.
+         * @param weight The weight of the items taken so far.
+         * @param cost The cost of the items taken so far.
+         */
+        private void branch(int position, long weight, long cost) {
+            if (position == size) {
+                offer(weight, cost);
+                return;
+            }
+            // Costs are integers, so no package can do better than the floor of the fractional bound.
+            // A branch that can only tie the best cost is still worth searching if it can still be lighter.
+            long bound = fractionalBound(position, capacity - weight, cost);
+            if (bound < bestCost || (bound == bestCost && weight > bestWeight)) {
+                return;
+            }
+            if (weight + weights[position] <= capacity) {
+                currentPackage[position] = true;
+                branch(position + 1, weight + weights[position], cost + costs[position]);
+                currentPackage[position] = false;
+            }
+            branch(position + 1, weight, cost);
+        }
+
+        /**
+         * Computes the fractional relaxation of the items from the given position on: whole items in bound order
+         * while they fit, then the fitting fraction of the first one that does not.
+         *
+         * @param position The position of the first undecided item.
+         * @param remaining The capacity left.
+         * @param cost The cost of the items taken so far.
+         * @return The floor of the highest cost any package in this branch could reach.
+         */
+        private long fractionalBound(int position, long remaining, long cost) {
+            for (int i = 0; i < size; i++) {
+                int item = boundOrder[i];
+                if (item < position) {
+                    continue;
+                }
+                if (weights[item] <= remaining) {
+                    remaining -= weights[item];
+                    cost += costs[item];
+                } else {
+                    return cost + costs[item] * remaining / weights[item];
+                }
+            }
+            return cost;
+        }
+
+        /**
+         * Records the current package if it beats the best one: higher cost, or the same cost and lighter,
+         * or the same cost and weight and leaving out items that come later in the order.
+         *
+         * @param weight The weight of the current package.
+         * @param cost The cost of the current package.
+         */
+        private void offer(long weight, long cost) {
+            if (cost > bestCost || (cost == bestCost && (weight < bestWeight || (weight == bestWeight && leavesOutLaterItems())))) {
+                bestCost = cost;
+                bestWeight = weight;
+                System.arraycopy(currentPackage, 0, bestPackage, 0, size);
+            }
+        }
+
+        /**
+         * Compares the current and the best package on the last item in which they differ.
+         *
+         * @return true if the current package leaves out the last item the two packages disagree on.
+         */
+        private boolean leavesOutLaterItems() {
+            for (int i = size - 1; i >= 0; i--) {
+                if (currentPackage[i] != bestPackage[i]) {
+                    return !currentPackage[i];
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.metrics.PackerMetrics;
+
+import java.util.Arrays;
+
+/**
+ * The HirschbergKnapsackSolver class solves the knapsack problem with two rows over the capacity and no table at all,
+ * reconstructing the package by divide and conquer as Hirschberg's algorithm does for sequence alignment.
+ * It is meant for the large packages of high limit mode, whose table or bitset would not fit into memory.
+ * <p>
+ * To split the items of a range at their middle, one pass fills the row of best costs with the lower half, and a
+ * second pass adds the upper half while recording, for every capacity, the capacity the backtracking of the table
+ * solver would have left for the lower half. That splits the capacity between the halves, and each half is then
+ * solved on its own with its share of the capacity, down to single items. The halves are solved with the same rule
+ * as the whole: the highest cost, then the lowest weight, then leaving out the items latest in the sorted order, so the
+ * answers are the same as the table solver's.
+ * <p>
+ * Both rows have one int per unit of capacity, and the recursion is only as deep as the logarithm of the item count.
+ * Every level of the recursion goes over all items once with capacities adding up to at most the full capacity, and
+ * the levels halve the items, so it takes about twice the work of a single pass of the rolling row.
+ */
+public class HirschbergKnapsackSolver extends AbstractKnapsackSolver {
+
+    @Override
+    public String name() {
+        return "HIRSCHBERG";
+    }
+
+    /**
+     * Estimates the cost as two operations per cell of the row for every item, so that the rolling row is preferred
+     * whenever its bitset fits into memory.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return Twice the number of items times the scaled capacity plus one.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        return 2 * dynamicProgrammingCells(itemCount, maxWeight);
+    }
+
+    @Override
+    boolean[] selectItems(SortedItems items, SolverWorkspace workspace) {
+        int itemCount = items.size();
+        int capacity = items.capacity;
+        int[] row = workspace.ints(SolverWorkspace.ROW, capacity + 1);
+        int[] origins = workspace.ints(SolverWorkspace.ORIGINS, capacity + 1);
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, itemCount);
+        int middle = itemCount >>> 1;
+        long cells = split(items, 0, middle, itemCount, capacity, row, origins);
+        // Start from the lightest weight that reaches the highest cost, like the backtracking of the table solver
+        int lightest = lightestOptimalCapacity(row, 0, capacity);
+        int lowerCapacity = origins[lightest];
+        cells += select(items, 0, middle, lowerCapacity, row, origins, selected);
+        cells += select(items, middle, itemCount, lightest - lowerCapacity, row, origins, selected);
+        PackerMetrics.recordDynamicProgrammingCells(cells);
+        return selected;
+    }
+
+    /**
+     * Selects the items of a range for a capacity: of the packages of those items that fit into the capacity, the one
+     * with the highest cost, then the lowest weight, then without the items latest in the sorted order.
+     *
+     * @param items The sorted items.
+     * @param from The position of the first item of the range.
+     * @param to The position after the last item of the range.
+     * @param capacity The scaled capacity for the range.
+     * @param row The row of best costs, at least capacity + 1 long.
+     * @param origins The row of capacities left for the lower half, at least capacity + 1 long.
+     * @param selected Receives, for every position of the range, whether that item is in the package.
+     * @return The number of dynamic programming cells filled.
+     */
+    private static long select(SortedItems items, int from, int to, int capacity, int[] row, int[] origins,
+                               boolean[] selected) {
+        if (from == to) {
+            // Only the lower half of an instance without items is empty
+            return 0;
+        }
+        if (to - from == 1) {
+            // Taking the item must improve on the empty package, as in the backtracking of the table solver
+            selected[from] = items.weights[from] <= capacity && items.costs[from] > 0;
+            return 0;
+        }
+        int middle = (from + to) >>> 1;
+        long cells = split(items, from, middle, to, capacity, row, origins);
+        int lowerCapacity = origins[capacity];
+        cells += select(items, from, middle, lowerCapacity, row, origins, selected);
+        cells += select(items, middle, to, capacity - lowerCapacity, row, origins, selected);
+        return cells;
+    }
+
+    /**
+     * Fills the row of best costs with a range of items and, for every capacity, records in the origins the capacity
+     * that backtracking through the upper half of the range leaves for the lower half.
+     *
+     * @param items The sorted items.
+     * @param from The position of the first item of the lower half.
+     * @param middle The position of the first item of the upper half.
+     * @param to The position after the last item of the upper half.
+     * @param capacity The scaled capacity for the range.
+     * @param row Receives the best cost of the range for every capacity up to the given one.
+     * @param origins Receives the capacity left for the lower half for every capacity up to the given one.
+     * @return The number of dynamic programming cells filled.
+     */
+    private static long split(SortedItems items, int from, int middle, int to, int capacity, int[] row, int[] origins) {
+        int[] weights = items.weights;
+        int[] costs = items.costs;
+        long cells = 0;
+        Arrays.fill(row, 0, capacity + 1, 0);
+        for (int i = from; i < middle; i++) {
+            int itemWeight = weights[i];
+            int itemCost = costs[i];
+            cells += Math.max(0, capacity - itemWeight + 1);
+            // Walk the row downwards so that row[j - itemWeight] still holds the previous item's value
+            for (int j = capacity; j >= itemWeight; j--) {
+                row[j] = Math.max(row[j], row[j - itemWeight] + itemCost);
+            }
+        }
+        for (int j = 0; j <= capacity; j++) {
+            origins[j] = j;
+        }
+        for (int i = middle; i < to; i++) {
+            int itemWeight = weights[i];
+            int itemCost = costs[i];
+            cells += Math.max(0, capacity - itemWeight + 1);
+            for (int j = capacity; j >= itemWeight; j--) {
+                int withItem = row[j - itemWeight] + itemCost;
+                // Only a strict improvement takes the item, which is where backtracking would take it too
+                if (withItem > row[j]) {
+                    row[j] = withItem;
+                    origins[j] = origins[j - itemWeight];
+                }
+            }
+        }
+        return cells;
+    }
+}
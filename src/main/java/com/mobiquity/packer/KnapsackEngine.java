@@ -0,0 +1,64 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.KnapsackProblemInstance;
+
+/**
+ * The KnapsackEngine interface is implemented by the algorithms that solve the knapsack problem, which
+ * {@link KnapsackSolver#solveKnapsackProblem(KnapsackProblemInstance)} picks from.
+ * Every implementation returns the same package: the one with the highest cost, then the lightest one, and between
+ * packages of equal cost and weight the one that leaves out the items that come last in the cost-to-weight order.
+ * The implementations differ in how their running time and memory grow with the number of items and the capacity,
+ * which {@link #estimateOperations(KnapsackProblemInstance)} describes so that {@link SolverRegistry} can pick the
+ * cheapest one for each instance.
+ */
+public interface KnapsackEngine {
+
+    /**
+     * Returns the name the solver is registered under, which is also its SOLVER_MODE value.
+     *
+     * @return The name of the solver.
+     */
+    String name();
+
+    /**
+     * Estimates the number of basic operations this solver needs for an instance, from its item count and its capacity
+     * scaled by the WEIGHT_SCALE_FACTOR. The estimates of different solvers are compared with each other.
+     *
+     * @param knapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return The estimated number of operations, or {@link Long#MAX_VALUE} if the solver cannot solve the instance.
+     */
+    long estimateOperations(KnapsackProblemInstance knapsackProblemInstance);
+
+    /**
+     * Estimates the number of basic operations this solver needs for an instance held as arrays.
+     * The built-in solvers only look at its size; the default converts it into an instance with a list of items.
+     *
+     * @param arrayKnapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return The estimated number of operations, or {@link Long#MAX_VALUE} if the solver cannot solve the instance.
+     */
+    default long estimateOperations(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+        return estimateOperations(arrayKnapsackProblemInstance.toKnapsackProblemInstance());
+    }
+
+    /**
+     * Solves the knapsack problem for a given KnapsackProblemInstance.
+     * If there is only one item in the package, it returns "-".
+     *
+     * @param knapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return A string representing the optimal solution. It contains the indices of the items to be included in the package,
+     *         separated by commas. If there is only one item in the package, it returns "-".
+     */
+    String solve(KnapsackProblemInstance knapsackProblemInstance);
+
+    /**
+     * Solves the knapsack problem for a given ArrayKnapsackProblemInstance.
+     * The built-in solvers work on the arrays directly; the default converts it into an instance with a list of items.
+     *
+     * @param arrayKnapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return A string representing the optimal solution, the same as for the instance with a list of items.
+     */
+    default String solve(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+        return solve(arrayKnapsackProblemInstance.toKnapsackProblemInstance());
+    }
+}
@@ -0,0 +1,165 @@
+package com.mobiquity.packer;
+
+import java.util.Arrays;
+
+/**
+ * The MeetInTheMiddleKnapsackSolver class solves the knapsack problem with the Horowitz-Sahni meet-in-the-middle method.
+ * The items are split into two halves and every subset of each half is enumerated. The subsets of the first half are
+ * sorted on weight, so that for every subset of the second half the best fitting subset of the first half is found
+ * with a binary search. The cost is about 2^(n/2) operations per half, independent of the capacity, which makes it much
+ * cheaper than the dynamic programming table when the capacity is large and there are few items.
+ * <p>
+ * It picks the same package as the dynamic programming solvers: the highest cost, then the lightest weight, and between
+ * packages of equal cost and weight the one the backtracking would pick, which is the one that leaves out the items
+ * that come last in the cost-to-weight order.
+ */
+public class MeetInTheMiddleKnapsackSolver extends AbstractKnapsackSolver {
+    // Largest half that is enumerated, so that a half's subsets fit into an array and its mask into the sort key
+    static final int MAX_HALF_SIZE = 20;
+    // Largest number of items the solver accepts
+    public static final int MAX_ITEM_COUNT = 2 * MAX_HALF_SIZE;
+
+    @Override
+    public String name() {
+        return "MEET_IN_THE_MIDDLE";
+    }
+
+    /**
+     * Estimates the cost as sorting the subsets of the first half plus a binary search for every subset of the second.
+     * It does not depend on the capacity.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return The estimated number of operations, or {@link Long#MAX_VALUE} if there are more than {@link #MAX_ITEM_COUNT} items.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        if (itemCount > MAX_ITEM_COUNT) {
+            return Long.MAX_VALUE;
+        }
+        int lowSize = itemCount / 2;
+        int highSize = itemCount - lowSize;
+        return (1L << lowSize) * (lowSize + 1) + (1L << highSize) * (lowSize + 1);
+    }
+
+    /**
+     * Chooses the items of the optimal package by meeting in the middle.
+     *
+     * @param sortedItems The sorted items, at most {@link #MAX_ITEM_COUNT} of them.
+     * @param workspace The workspace of the solving thread, for the subset arrays.
+     * @return For every position in the sorted order, whether that item is in the package.
+     * @throws IllegalArgumentException If there are more than {@link #MAX_ITEM_COUNT} items.
+     */
+    @Override
+    boolean[] selectItems(SortedItems sortedItems, SolverWorkspace workspace) {
+        int itemCount = sortedItems.size();
+        if (itemCount > MAX_ITEM_COUNT) {
+            throw new IllegalArgumentException("Meet in the middle supports up to " + MAX_ITEM_COUNT + " items");
+        }
+        long capacity = sortedItems.capacity;
+        int[] weights = sortedItems.weights;
+        int[] costs = sortedItems.costs;
+
+        // The first half holds the items that come first in the order, so they are the low bits of the package mask
+        int lowSize = itemCount / 2;
+        int highSize = itemCount - lowSize;
+
+        // Enumerate the subsets of the first half, sorted on weight and then on mask
+        int lowCount = 1 << lowSize;
+        long[] lowWeights = workspace.longs(SolverWorkspace.LOW_WEIGHTS, lowCount);
+        long[] lowCosts = workspace.longs(SolverWorkspace.LOW_COSTS, lowCount);
+        enumerateSubsets(weights, costs, 0, lowSize, lowWeights, lowCosts);
+        long[] lowKeys = workspace.longs(SolverWorkspace.LOW_KEYS, lowCount);
+        for (int mask = 0; mask < lowCount; mask++) {
+            lowKeys[mask] = lowWeights[mask] << MAX_HALF_SIZE | mask;
+        }
+        Arrays.sort(lowKeys, 0, lowCount);
+        // For every prefix of the sorted subsets, the best one: highest cost, then lightest, then smallest mask
+        long[] sortedWeights = workspace.longs(SolverWorkspace.SORTED_LOW_WEIGHTS, lowCount);
+        int[] bestMasks = workspace.ints(SolverWorkspace.BEST_MASKS, lowCount);
+        int bestMask = 0;
+        for (int k = 0; k < lowCount; k++) {
+            int mask = (int) (lowKeys[k] & ((1L << MAX_HALF_SIZE) - 1));
+            sortedWeights[k] = lowWeights[mask];
+            // Sorted on weight then mask, so a later subset only wins with a strictly higher cost
+            if (k == 0 || lowCosts[mask] > lowCosts[bestMask]) {
+                bestMask = mask;
+            }
+            bestMasks[k] = bestMask;
+        }
+
+        // Combine every subset of the second half with the best fitting subset of the first half
+        int highCount = 1 << highSize;
+        long[] highWeights = workspace.longs(SolverWorkspace.HIGH_WEIGHTS, highCount);
+        long[] highCosts = workspace.longs(SolverWorkspace.HIGH_COSTS, highCount);
+        enumerateSubsets(weights, costs, lowSize, highSize, highWeights, highCosts);
+        long bestCost = -1;
+        long bestWeight = 0;
+        long bestPackage = 0;
+        // Going through the second half in increasing mask order, a later package only wins if it is strictly better
+        for (int highMask = 0; highMask < highCount; highMask++) {
+            long remaining = capacity - highWeights[highMask];
+            if (remaining < 0) {
+                continue;
+            }
+            int lowMask = bestMasks[lastAtMost(sortedWeights, lowCount, remaining)];
+            long cost = highCosts[highMask] + lowCosts[lowMask];
+            long weight = highWeights[highMask] + lowWeights[lowMask];
+            if (cost > bestCost || (cost == bestCost && weight < bestWeight)) {
+                bestCost = cost;
+                bestWeight = weight;
+                bestPackage = (long) highMask << lowSize | lowMask;
+            }
+        }
+
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            selected[i] = (bestPackage & (1L << i)) != 0;
+        }
+        return selected;
+    }
+
+    /**
+     * Computes the total weight and cost of every subset of a range of items, indexed by the subset's bit mask.
+     *
+     * @param weights The weights of all items.
+     * @param costs The costs of all items.
+     * @param first The first item of the range.
+     * @param size The number of items in the range.
+     * @param subsetWeights Receives the total weight of every subset.
+     * @param subsetCosts Receives the total cost of every subset.
+     */
+    private static void enumerateSubsets(int[] weights, int[] costs, int first, int size, long[] subsetWeights, long[] subsetCosts) {
+        subsetWeights[0] = 0;
+        subsetCosts[0] = 0;
+        for (int mask = 1; mask < 1 << size; mask++) {
+            // Every subset is a smaller subset plus its lowest item
+            int lowest = Integer.numberOfTrailingZeros(mask);
+            int rest = mask & (mask - 1);
+            subsetWeights[mask] = subsetWeights[rest] + weights[first + lowest];
+            subsetCosts[mask] = subsetCosts[rest] + costs[first + lowest];
+        }
+    }
+
+    /**
+     * Finds the last position of a sorted array whose value is at most the given limit.
+     *
+     * @param sorted Values in increasing order, starting with 0.
+     * @param length The number of values.
+     * @param limit The limit, at least 0.
+     * @return The last position with a value at most the limit.
+     */
+    private static int lastAtMost(long[] sorted, int length, long limit) {
+        int low = 0;
+        int high = length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (sorted[middle] <= limit) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
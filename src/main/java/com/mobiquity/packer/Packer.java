@@ -1,17 +1,36 @@
 package com.mobiquity.packer;
 
 import com.mobiquity.exception.APIException;
+import com.mobiquity.exception.FileReadingException;
+import com.mobiquity.file.BinaryFormat;
 import com.mobiquity.file.FileReader;
-import com.mobiquity.model.KnapsackProblemInstance;
-import com.mobiquity.validation.ValidationService;
+import com.mobiquity.metrics.PackerMetrics;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.util.ConfigProperties;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This class is responsible for packing items into a package.
  */
 public class Packer {
 
+  // Solutions of recently packed test cases, shared by all pack calls
+  private static final SolutionCache SOLUTION_CACHE = new SolutionCache(ConfigProperties.getPropertyAsInt("SOLUTION_CACHE_SIZE", 1024));
+
   /**
    * Private constructor to prevent instantiation of utility class.
    */
@@ -19,6 +38,16 @@ public class Packer {
     throw new IllegalStateException("Utility class");
   }
 
+  /**
+   * Returns the cache of solutions shared by all pack calls, for example to read its statistics.
+   * Its size is set by the SOLUTION_CACHE_SIZE property, 1024 when it is not configured, where 0 disables caching.
+   *
+   * @return The solution cache.
+   */
+  public static SolutionCache solutionCache() {
+    return SOLUTION_CACHE;
+  }
+
   /**
    * Packs items into a package.
    *
@@ -28,28 +57,353 @@ public class Packer {
    */
   public static String pack(String filePath) throws APIException {
     try {
-      // Read the test cases from the file
-      List<KnapsackProblemInstance> knapsackProblemInstances = FileReader.readTestCasesFromFile(filePath);
+      // Read and validate the test cases from the file
+      List<ArrayKnapsackProblemInstance> knapsackProblemInstances = readValidTestCases(filePath);
 
       // StringBuilder to build the result string
       StringBuilder resultBuilder = new StringBuilder();
 
       // Iterate over each test case
-      for (KnapsackProblemInstance testCase : knapsackProblemInstances) {
-        // Validate the test case
-        ValidationService.validateKnapsackProblemInstance(testCase);
+      for (ArrayKnapsackProblemInstance testCase : knapsackProblemInstances) {
+        // Solve the test case, then append the solution to the result string
+        resultBuilder.append(solveValidTestCase(testCase)).append("\n");
+      }
 
-        // Solve the knapsack problem for this test case
-        String optimalSolution = KnapsackSolver.solveKnapsackProblem(testCase);
+      // Return the result string, removing the trailing newline
+      return resultBuilder.toString().trim();
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    }
+  }
 
-        // Append the solution to the result string
-        resultBuilder.append(optimalSolution).append("\n");
+  /**
+   * Packs items into a package, solving the test cases in parallel on the given executor.
+   * The test cases are independent of each other, so any executor can be used, for example
+   * {@link java.util.concurrent.ForkJoinPool#commonPool()} or a virtual thread per task executor.
+   * The solutions are still returned in the order of the input lines. The test cases are validated while the file
+   * is read, so if several test cases fail, the exception of the first failing line is thrown, the same as
+   * {@link #pack(String)}.
+   *
+   * @param filePath The path to the file containing the test cases.
+   * @param executor The executor to run the test cases on.
+   * @return A string representing the optimal solution for each test case.
+   * @throws APIException If an error occurs while reading the file or packing the items.
+   */
+  public static String pack(String filePath, Executor executor) throws APIException {
+    List<CompletableFuture<String>> solutions = new ArrayList<>();
+    try {
+      // Read and validate the test cases from the file
+      List<ArrayKnapsackProblemInstance> knapsackProblemInstances = readValidTestCases(filePath);
+
+      // Submit every test case to the executor
+      for (ArrayKnapsackProblemInstance testCase : knapsackProblemInstances) {
+        solutions.add(CompletableFuture.supplyAsync(() -> solveValidTestCaseUnchecked(testCase), executor));
+      }
+
+      // Collect the solutions in input order
+      StringBuilder resultBuilder = new StringBuilder();
+      for (CompletableFuture<String> solution : solutions) {
+        resultBuilder.append(join(solution)).append("\n");
       }
 
       // Return the result string, removing the trailing newline
       return resultBuilder.toString().trim();
     } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      PackerMetrics.recordError(e);
+      throw e;
+    } finally {
+      // After a failure the remaining test cases are not needed any more
+      solutions.forEach(solution -> solution.cancel(false));
+    }
+  }
+
+  /**
+   * Packs items into a package, solving the test cases in parallel on a fork-join pool in tasks of about the same
+   * estimated cost instead of one task per test case. Small test cases are solved together in one task and large ones
+   * in a task of their own, so that files whose lines differ widely in size still keep every thread busy until the
+   * end; see {@link BatchScheduler}. The solutions are returned in the order of the input lines, and if several test
+   * cases fail, the exception of the first failing line is thrown, the same as {@link #pack(String)}.
+   *
+   * @param filePath The path to the file containing the test cases.
+   * @param pool The fork-join pool to solve the test cases on, for example {@link ForkJoinPool#commonPool()}.
+   * @return A string representing the optimal solution for each test case.
+   * @throws APIException If an error occurs while reading the file or packing the items.
+   */
+  public static String packBalanced(String filePath, ForkJoinPool pool) throws APIException {
+    try {
+      // Read and validate the test cases from the file
+      List<ArrayKnapsackProblemInstance> knapsackProblemInstances = readValidTestCases(filePath);
+
+      // Solve the test cases in tasks of about the same estimated cost
+      String[] solutions = BatchScheduler.solve(knapsackProblemInstances, pool, Packer::solveValidTestCase);
+
+      // Join the solutions in input order
+      return String.join("\n", solutions);
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
       throw new APIException(e.getMessage(), e);
     }
   }
+
+  /**
+   * Packs items into a package, streaming the test cases of a file into a writer.
+   * Only one line is held in memory at a time, so the size of the file is not limited by the heap.
+   *
+   * @param filePath The path to the file containing the test cases.
+   * @param output The writer to write the optimal solution for each test case to, one per line.
+   * @throws APIException If an error occurs while reading the file, writing the solutions or packing the items.
+   */
+  public static void pack(String filePath, Writer output) throws APIException {
+    try {
+      FileReader.forEachValidArrayTestCase(filePath, testCase -> writeSolution(output, solveValidTestCase(testCase)));
+      flush(output);
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Packs items into a package, streaming test cases from a reader into a writer.
+   * Each line is read, validated, solved and written before the next line is read,
+   * so a slow writer naturally slows the reading down and memory use does not grow with the input.
+   *
+   * @param input The reader to read the test cases from, one per line.
+   * @param output The writer to write the optimal solution for each test case to, one per line.
+   * @throws APIException If an error occurs while reading the test cases, writing the solutions or packing the items.
+   */
+  public static void pack(Reader input, Writer output) throws APIException {
+    try {
+      BufferedReader reader = toBufferedReader(input);
+      String line;
+      while ((line = readLine(reader)) != null) {
+        writeSolution(output, solveValidTestCase(FileReader.parseValidArrayTestCase(line)));
+      }
+      flush(output);
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Packs items into a package, streaming test cases from a reader into a writer and solving them in parallel.
+   * At most {@code maxInFlight} test cases are submitted to the executor at a time: once the window is full,
+   * the oldest test case is awaited and written before the next line is read. This keeps the memory use bounded
+   * and writes the solutions in input order. If several test cases fail, the exception of the first failing line
+   * is thrown, after the solutions of the lines before it have been written.
+   *
+   * @param input The reader to read the test cases from, one per line.
+   * @param output The writer to write the optimal solution for each test case to, one per line.
+   * @param executor The executor to run the test cases on.
+   * @param maxInFlight The maximum number of test cases being solved at the same time.
+   * @throws APIException If an error occurs while reading the test cases, writing the solutions or packing the items.
+   */
+  public static void pack(Reader input, Writer output, Executor executor, int maxInFlight) throws APIException {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least 1");
+    }
+    Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>(maxInFlight);
+    try {
+      BufferedReader reader = toBufferedReader(input);
+      String line;
+      while ((line = readLine(reader)) != null) {
+        ArrayKnapsackProblemInstance testCase;
+        try {
+          testCase = FileReader.parseValidArrayTestCase(line);
+        } catch (APIException e) {
+          // Lines before the failing one come first, so their solutions (or failures) are reported first
+          writeSolutions(output, inFlight, 0);
+          throw e;
+        }
+        inFlight.addLast(CompletableFuture.supplyAsync(() -> solveValidTestCaseUnchecked(testCase), executor));
+        writeSolutions(output, inFlight, maxInFlight - 1);
+      }
+      writeSolutions(output, inFlight, 0);
+      flush(output);
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    } catch (RuntimeException e) {
+      PackerMetrics.recordError(e);
+      throw e;
+    } finally {
+      // After a failure the test cases still in flight are not needed any more
+      inFlight.forEach(solution -> solution.cancel(false));
+    }
+  }
+
+  /**
+   * Packs items into a package, reading test cases in the {@link BinaryFormat binary format} straight from a buffer,
+   * for example a memory-mapped file, and writing the solutions in the binary format.
+   *
+   * @param input The buffer holding a whole binary test case file, from its position to its limit.
+   * @param output The stream to write the binary solutions to, in input order. It is flushed but not closed.
+   * @throws APIException If the input is not a valid binary test case file, a solution cannot be written
+   *                      or an error occurs while packing the items.
+   */
+  public static void packBinary(ByteBuffer input, OutputStream output) throws APIException {
+    try {
+      BinaryFormat.SolutionWriter writer = new BinaryFormat.SolutionWriter(output);
+      BinaryFormat.forEachValidArrayTestCase(input, testCase -> writer.write(solveValidTestCase(testCase)));
+      writer.flush();
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Packs items into a package, memory-mapping a file of test cases in the {@link BinaryFormat binary format}
+   * and writing the solutions in the binary format.
+   *
+   * @param filePath The path to the binary file containing the test cases.
+   * @param output The stream to write the binary solutions to, in input order. It is flushed but not closed.
+   * @throws APIException If an error occurs while reading the file, writing the solutions or packing the items.
+   */
+  public static void packBinary(String filePath, OutputStream output) throws APIException {
+    try {
+      BinaryFormat.SolutionWriter writer = new BinaryFormat.SolutionWriter(output);
+      BinaryFormat.forEachValidArrayTestCase(filePath, testCase -> writer.write(solveValidTestCase(testCase)));
+      writer.flush();
+    } catch (APIException e) {
+      PackerMetrics.recordError(e);
+      throw new APIException(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Reads and validates all test cases of a file into arrays.
+   *
+   * @param filePath The path to the file containing the test cases.
+   * @return The valid test cases, in file order.
+   * @throws APIException If an error occurs while reading the file, or a line is malformed or not valid.
+   */
+  private static List<ArrayKnapsackProblemInstance> readValidTestCases(String filePath) throws APIException {
+    List<ArrayKnapsackProblemInstance> testCases = new ArrayList<>();
+    FileReader.forEachValidArrayTestCase(filePath, testCases::add);
+    return testCases;
+  }
+
+  /**
+   * Awaits the oldest in-flight solutions in order and writes them, until at most {@code remaining} are left.
+   *
+   * @param output The writer to write the solutions to.
+   * @param inFlight The solutions being computed, oldest first.
+   * @param remaining The number of solutions that may stay in flight.
+   * @throws APIException If a test case failed or a solution cannot be written.
+   */
+  private static void writeSolutions(Writer output, Deque<CompletableFuture<String>> inFlight, int remaining) throws APIException {
+    while (inFlight.size() > remaining) {
+      writeSolution(output, join(inFlight.removeFirst()));
+    }
+  }
+
+  /**
+   * Awaits a solution being computed asynchronously.
+   *
+   * @param solution The solution being computed.
+   * @return The solution.
+   * @throws APIException If the test case failed.
+   * @throws RuntimeException If solving the test case failed with it, unwrapped from its CompletionException.
+   */
+  private static String join(CompletableFuture<String> solution) throws APIException {
+    try {
+      return solution.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof APIException apiException) {
+        throw apiException;
+      }
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Writes a single solution followed by a line separator.
+   *
+   * @param output The writer to write the solution to.
+   * @param solution The solution to write.
+   * @throws APIException If the solution cannot be written.
+   */
+  private static void writeSolution(Writer output, String solution) throws APIException {
+    try {
+      output.write(solution);
+      output.write('\n');
+    } catch (IOException e) {
+      throw new APIException("Failed to write solution", e);
+    }
+  }
+
+  /**
+   * Flushes the writer once all solutions have been written.
+   *
+   * @param output The writer to flush.
+   * @throws APIException If the writer cannot be flushed.
+   */
+  private static void flush(Writer output) throws APIException {
+    try {
+      output.flush();
+    } catch (IOException e) {
+      throw new APIException("Failed to write solution", e);
+    }
+  }
+
+  /**
+   * Reads the next line of test case input.
+   *
+   * @param reader The reader to read the line from.
+   * @return The next line, or null at the end of the input.
+   * @throws FileReadingException If the line cannot be read.
+   */
+  private static String readLine(BufferedReader reader) throws FileReadingException {
+    try {
+      return reader.readLine();
+    } catch (IOException e) {
+      throw new FileReadingException("Failed to read test case", e);
+    }
+  }
+
+  /**
+   * Wraps a reader in a BufferedReader, unless it already is one.
+   *
+   * @param input The reader to wrap.
+   * @return A BufferedReader reading from the input.
+   */
+  private static BufferedReader toBufferedReader(Reader input) {
+    return input instanceof BufferedReader bufferedReader ? bufferedReader : new BufferedReader(input);
+  }
+
+  /**
+   * Solves a single test case that has been validated while it was parsed, unless its solution is still in the
+   * solution cache.
+   *
+   * @param testCase The valid test case to solve.
+   * @return The optimal solution for the test case.
+   * @throws APIException If the test case cannot be solved.
+   */
+  private static String solveValidTestCase(ArrayKnapsackProblemInstance testCase) throws APIException {
+    return SOLUTION_CACHE.computeIfAbsent(testCase, KnapsackSolver::solveKnapsackProblem);
+  }
+
+  /**
+   * Solves a single valid test case, wrapping failures so it can run as an asynchronous task.
+   *
+   * @param testCase The valid test case to solve.
+   * @return The optimal solution for the test case.
+   * @throws CompletionException If the test case cannot be solved, with the APIException as its cause.
+   */
+  private static String solveValidTestCaseUnchecked(ArrayKnapsackProblemInstance testCase) {
+    try {
+      return solveValidTestCase(testCase);
+    } catch (APIException e) {
+      throw new CompletionException(e);
+    }
+  }
 }
@@ -0,0 +1,148 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.metrics.PackerMetrics;
+
+/**
+ * The ParetoKnapsackSolver class solves the knapsack problem with the Nemhauser-Ullmann algorithm. Instead of a row
+ * over every capacity, it keeps only the Pareto frontier of the packages of the items seen so far: for every weight a
+ * package can have, the best cost, and only if it is higher than the cost of every lighter package. Each item is added
+ * by merging the frontier with a copy of itself that includes the item, in one pass over both as they are sorted on
+ * weight. The frontier is at most as long as the capacity, but usually far shorter, so the work depends on the items
+ * rather than on the capacity.
+ * <p>
+ * The packages of the frontier are held in parallel arrays of weights, costs and item masks. Of two packages of equal
+ * weight and cost, the one without the item being added is kept, so each entry is the package that leaves out the
+ * items that come last in the cost-to-weight order, and the last entry of the final frontier is the package the
+ * dynamic programming solvers pick: the highest cost, then the lightest weight.
+ */
+public class ParetoKnapsackSolver extends AbstractKnapsackSolver {
+    // Largest number of items the solver accepts, so that a package fits into a long mask
+    public static final int MAX_ITEM_COUNT = Long.SIZE;
+    // Bytes taken by one entry in each of the two frontiers: a weight, a cost and a mask
+    private static final int ENTRY_BYTES = 2 * (2 * Integer.BYTES + Long.BYTES);
+
+    @Override
+    public String name() {
+        return "PARETO";
+    }
+
+    /**
+     * Estimates the cost as the worst case of merging frontiers that double with every item until every weight up
+     * to the capacity is on them. In practice most packages are dominated and the frontiers stay far shorter.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return The estimated number of operations, or {@link Long#MAX_VALUE} if there are more than
+     *         {@link #MAX_ITEM_COUNT} items or the frontiers could take more than {@link #MAX_SCRATCH_BYTES}.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        long weightCount = dynamicProgrammingCells(1, maxWeight);
+        if (itemCount > MAX_ITEM_COUNT || maxFrontierLength(itemCount, weightCount) * ENTRY_BYTES > MAX_SCRATCH_BYTES) {
+            return Long.MAX_VALUE;
+        }
+        long operations = 0;
+        for (int i = 0; i < itemCount; i++) {
+            operations += 2 * maxFrontierLength(i, weightCount);
+        }
+        return operations;
+    }
+
+    /**
+     * Chooses the items of the optimal package by merging the Pareto frontiers item by item.
+     *
+     * @param items The sorted items, at most {@link #MAX_ITEM_COUNT} of them.
+     * @param workspace The workspace of the solving thread, for the frontier arrays.
+     * @return For every position in the sorted order, whether that item is in the package.
+     * @throws IllegalArgumentException If there are more than {@link #MAX_ITEM_COUNT} items.
+     */
+    @Override
+    boolean[] selectItems(SortedItems items, SolverWorkspace workspace) {
+        int itemCount = items.size();
+        if (itemCount > MAX_ITEM_COUNT) {
+            throw new IllegalArgumentException("The Pareto frontier supports up to " + MAX_ITEM_COUNT + " items");
+        }
+        int capacity = items.capacity;
+        int maxLength = Math.toIntExact(maxFrontierLength(itemCount, capacity + 1L));
+        int[] weights = workspace.ints(SolverWorkspace.FRONTIER_WEIGHTS, maxLength);
+        int[] costs = workspace.ints(SolverWorkspace.FRONTIER_COSTS, maxLength);
+        long[] masks = workspace.longs(SolverWorkspace.FRONTIER_MASKS, maxLength);
+        int[] nextWeights = workspace.ints(SolverWorkspace.NEXT_FRONTIER_WEIGHTS, maxLength);
+        int[] nextCosts = workspace.ints(SolverWorkspace.NEXT_FRONTIER_COSTS, maxLength);
+        long[] nextMasks = workspace.longs(SolverWorkspace.NEXT_FRONTIER_MASKS, maxLength);
+        // The frontier of no items is the empty package
+        weights[0] = 0;
+        costs[0] = 0;
+        masks[0] = 0L;
+        int length = 1;
+        long entries = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int itemWeight = items.weights[i];
+            int itemCost = items.costs[i];
+            long itemBit = 1L << i;
+            int without = 0;
+            int with = 0;
+            int nextLength = 0;
+            int lastCost = -1;
+            // Merge the packages without the item and those with it on weight, skipping the ones with the item
+            // that do not fit, and keep a package only if it costs more than every lighter one
+            while (without < length || (with < length && weights[with] + itemWeight <= capacity)) {
+                boolean takeWithout = with == length || weights[with] + itemWeight > capacity
+                        || (without < length && (weights[without] < weights[with] + itemWeight
+                        || (weights[without] == weights[with] + itemWeight && costs[without] >= costs[with] + itemCost)));
+                int weight;
+                int cost;
+                long mask;
+                if (takeWithout) {
+                    weight = weights[without];
+                    cost = costs[without];
+                    mask = masks[without];
+                    without++;
+                } else {
+                    weight = weights[with] + itemWeight;
+                    cost = costs[with] + itemCost;
+                    mask = masks[with] | itemBit;
+                    with++;
+                }
+                if (cost > lastCost) {
+                    nextWeights[nextLength] = weight;
+                    nextCosts[nextLength] = cost;
+                    nextMasks[nextLength] = mask;
+                    nextLength++;
+                    lastCost = cost;
+                }
+            }
+            entries += nextLength;
+            // Swap the frontiers
+            int[] swapInts = weights;
+            weights = nextWeights;
+            nextWeights = swapInts;
+            swapInts = costs;
+            costs = nextCosts;
+            nextCosts = swapInts;
+            long[] swapLongs = masks;
+            masks = nextMasks;
+            nextMasks = swapLongs;
+            length = nextLength;
+        }
+        PackerMetrics.recordDynamicProgrammingCells(entries);
+        // The last package of the frontier has the highest cost, and is the lightest of that cost
+        long best = masks[length - 1];
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            selected[i] = (best & (1L << i)) != 0;
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the longest a frontier can get: one package per subset of the items, but at most one per weight.
+     *
+     * @param itemCount The number of items added to the frontier.
+     * @param weightCount The number of weights a package can have, the scaled capacity plus one.
+     * @return The largest number of packages on the frontier.
+     */
+    private static long maxFrontierLength(int itemCount, long weightCount) {
+        return itemCount >= Long.SIZE - 2 ? weightCount : Math.min(1L << itemCount, weightCount);
+    }
+}
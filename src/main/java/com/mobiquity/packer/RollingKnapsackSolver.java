@@ -0,0 +1,71 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.metrics.PackerMetrics;
+
+/**
+ * The RollingKnapsackSolver class solves the knapsack problem with a single rolling dynamic programming row.
+ * Instead of keeping the full (items + 1) x (capacity + 1) table, it keeps one row of best costs
+ * and a bitset recording, for every item and capacity, whether taking the item improved the row.
+ * The bitset is all the backtracking step needs, so the answers are the same as the full table solver.
+ */
+public class RollingKnapsackSolver extends AbstractKnapsackSolver {
+
+    @Override
+    public String name() {
+        return "ROLLING";
+    }
+
+    /**
+     * Estimates the cost as one operation per cell of the row for every item.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return The number of items times the scaled capacity plus one, or {@link Long#MAX_VALUE} if the bitset would
+     *         take more than {@link #MAX_SCRATCH_BYTES} or be longer than the workspace keeps.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        long cells = dynamicProgrammingCells(itemCount, maxWeight);
+        return fitsWorkspace((cells + 63) >>> 6, Long.BYTES) ? cells : Long.MAX_VALUE;
+    }
+
+    @Override
+    boolean[] selectItems(SortedItems items, SolverWorkspace workspace) {
+        int itemCount = items.size();
+        int capacity = items.capacity;
+        int rowLength = capacity + 1;
+        int[] weights = items.weights;
+        int[] costs = items.costs;
+        // One row of best costs, plus one bit per (item, capacity) cell telling whether the item was taken
+        int[] row = workspace.clearedInts(SolverWorkspace.ROW, rowLength);
+        long[] taken = workspace.clearedLongs(SolverWorkspace.TAKEN_BITS, Math.toIntExact(((long) itemCount * rowLength + 63) >>> 6));
+        long cells = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int itemWeight = weights[i];
+            int itemCost = costs[i];
+            cells += Math.max(0, capacity - itemWeight + 1);
+            long rowOffset = (long) i * rowLength;
+            // Walk the row downwards so that row[j - itemWeight] still holds the previous item's value
+            for (int j = capacity; j >= itemWeight; j--) {
+                int withItem = row[j - itemWeight] + itemCost;
+                if (withItem > row[j]) {
+                    row[j] = withItem;
+                    long bit = rowOffset + j;
+                    taken[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+        PackerMetrics.recordDynamicProgrammingCells(cells);
+        // Backtrack to find optimal solution, starting from the lightest weight that reaches the highest cost
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, itemCount);
+        int j = lightestOptimalCapacity(row, 0, capacity);
+        for (int i = itemCount - 1; i >= 0; i--) {
+            long bit = (long) i * rowLength + j;
+            if ((taken[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                selected[i] = true;
+                j -= weights[i];
+            }
+        }
+        return selected;
+    }
+}
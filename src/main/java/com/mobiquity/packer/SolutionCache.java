@@ -0,0 +1,294 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.metrics.PackerMetrics;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.Item;
+import com.mobiquity.model.KnapsackProblemInstance;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The SolutionCache class remembers the solutions of recently solved test cases, so that a line that is repeated
+ * in the input is answered without validating and solving it again.
+ * <p>
+ * Entries are keyed by the maximum weight and the (index, weight, cost) tuples of the items in the order the solvers
+ * work in: sorted on their cost-to-weight ratio, with items of equal ratio in input order. That order, not the input
+ * order, decides between packages of equal cost and weight, so two lines listing the same items in a different order
+ * share an entry unless they differ in the order of items of equal ratio. The key keeps the exact bits of the weights
+ * and costs in a single array with a precomputed hash, so it is compact and two instances only share an entry if every
+ * solver would give them the same answer. An {@link ArrayKnapsackProblemInstance} is keyed by its weights and costs
+ * scaled back, so it shares the entry of the same test case held as a list of items.
+ * <p>
+ * The cache holds at most a fixed number of entries. It is safe to use from several threads, and lookups take no lock,
+ * so the threads of a parallel pack do not wait for each other on hits. A full cache evicts with the CLOCK algorithm,
+ * which approximates evicting the least recently used entry: a hit only marks its entry as used, and eviction goes
+ * round the entries in insertion order, passing over and unmarking the used ones and removing the first unused one.
+ * Only adding an entry to a full cache takes a lock. Two threads that miss on the same key at the same time both solve
+ * it, which gives the same answer and keeps the lock out of the solving.
+ */
+public class SolutionCache {
+    private final int maximumSize;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Keys of the entries in the order the eviction visits them, which is insertion order until an entry is passed over
+    private final ConcurrentLinkedQueue<Key> clock = new ConcurrentLinkedQueue<>();
+    private final Object evictionLock = new Object();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a cache that holds up to the given number of solutions.
+     *
+     * @param maximumSize The maximum number of solutions to keep, or 0 to disable caching.
+     * @throws IllegalArgumentException If the maximum size is negative.
+     */
+    public SolutionCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("maximumSize must not be negative");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the cached solution of a test case, or solves it and caches the solution.
+     * Test cases that fail to solve are not cached, so they fail again the next time.
+     *
+     * @param knapsackProblemInstance The test case to solve.
+     * @param loader Solves the test case when its solution is not cached.
+     * @return The solution of the test case.
+     * @throws APIException If the loader fails.
+     */
+    public String computeIfAbsent(KnapsackProblemInstance knapsackProblemInstance,
+                                  Loader<KnapsackProblemInstance> loader) throws APIException {
+        if (maximumSize == 0) {
+            misses.increment();
+            PackerMetrics.recordCacheLookup(false);
+            return loader.load(knapsackProblemInstance);
+        }
+        return computeIfAbsent(new Key(knapsackProblemInstance), knapsackProblemInstance, loader);
+    }
+
+    /**
+     * Returns the cached solution of a test case held as arrays, or solves it and caches the solution.
+     * Test cases that fail to solve are not cached, so they fail again the next time.
+     *
+     * @param arrayKnapsackProblemInstance The test case to solve.
+     * @param loader Solves the test case when its solution is not cached.
+     * @return The solution of the test case.
+     * @throws APIException If the loader fails.
+     */
+    public String computeIfAbsent(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance,
+                                  Loader<ArrayKnapsackProblemInstance> loader) throws APIException {
+        if (maximumSize == 0) {
+            misses.increment();
+            PackerMetrics.recordCacheLookup(false);
+            return loader.load(arrayKnapsackProblemInstance);
+        }
+        return computeIfAbsent(new Key(arrayKnapsackProblemInstance), arrayKnapsackProblemInstance, loader);
+    }
+
+    /**
+     * Returns the cached solution for a key, or solves the test case and caches the solution.
+     *
+     * @param key The key of the test case.
+     * @param testCase The test case to solve.
+     * @param loader Solves the test case when its solution is not cached.
+     * @param <T> The representation of the test case.
+     * @return The solution of the test case.
+     * @throws APIException If the loader fails.
+     */
+    private <T> String computeIfAbsent(Key key, T testCase, Loader<T> loader) throws APIException {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            // Only written when it changes, so that hits on the same entry do not keep invalidating its cache line
+            if (!entry.used) {
+                entry.used = true;
+            }
+            hits.increment();
+            PackerMetrics.recordCacheLookup(true);
+            return entry.solution;
+        }
+        misses.increment();
+        PackerMetrics.recordCacheLookup(false);
+        String solution = loader.load(testCase);
+        if (entries.putIfAbsent(key, new Entry(solution)) == null) {
+            clock.add(key);
+            if (entries.size() > maximumSize) {
+                evict();
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Removes entries until the cache holds no more than its maximum size, giving every entry used since the eviction
+     * last passed it another round.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            while (entries.size() > maximumSize) {
+                Key key = clock.poll();
+                if (key == null) {
+                    // An entry added while the cache was being cleared can be missing from the clock
+                    Iterator<Key> keys = entries.keySet().iterator();
+                    if (!keys.hasNext()) {
+                        return;
+                    }
+                    key = keys.next();
+                }
+                Entry entry = entries.get(key);
+                if (entry == null) {
+                    // Removed by clear
+                    continue;
+                }
+                if (entry.used) {
+                    entry.used = false;
+                    clock.add(key);
+                } else if (entries.remove(key, entry)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all cached solutions. The statistics are kept.
+     */
+    public void clear() {
+        entries.clear();
+        clock.clear();
+    }
+
+    /**
+     * Returns the number of hits, misses and evictions since the cache was created, and its current size.
+     *
+     * @return A snapshot of the cache statistics.
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Solves a test case whose solution is not cached.
+     *
+     * @param <T> The representation of the test case.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        /**
+         * Solves a test case.
+         *
+         * @param testCase The test case to solve.
+         * @return The solution of the test case.
+         * @throws APIException If the test case cannot be solved.
+         */
+        String load(T testCase) throws APIException;
+    }
+
+    /**
+     * The statistics of a cache.
+     *
+     * @param hits The number of lookups answered from the cache.
+     * @param misses The number of lookups that had to solve the test case.
+     * @param evictions The number of solutions removed to make room for newer ones.
+     * @param size The number of solutions currently cached.
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+
+        /**
+         * Returns the share of lookups answered from the cache.
+         *
+         * @return The hit rate between 0 and 1, or 0 if there have been no lookups.
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * A cached solution with the mark the CLOCK eviction reads.
+     */
+    private static final class Entry {
+        private final String solution;
+        // Whether the entry has been hit since the eviction last passed it
+        private volatile boolean used;
+
+        private Entry(String solution) {
+            this.solution = solution;
+        }
+    }
+
+    /**
+     * The canonical form of a test case: the maximum weight followed by the index and the exact bits of the weight
+     * and cost of every item, in the stable cost-to-weight order the solvers sort the items in.
+     */
+    private static final class Key {
+        private final long[] values;
+        private final int hash;
+
+        private Key(KnapsackProblemInstance knapsackProblemInstance) {
+            List<Item> items = knapsackProblemInstance.itemList();
+            values = new long[1 + 3 * items.size()];
+            values[0] = knapsackProblemInstance.maxWeight();
+            double[] ratios = new double[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                insert(ratios, i, item.index(), item.weight(), item.cost());
+            }
+            hash = Arrays.hashCode(values);
+        }
+
+        private Key(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+            int size = arrayKnapsackProblemInstance.size();
+            values = new long[1 + 3 * size];
+            values[0] = arrayKnapsackProblemInstance.maxWeight();
+            double[] ratios = new double[size];
+            for (int i = 0; i < size; i++) {
+                insert(ratios, i, arrayKnapsackProblemInstance.index(i), arrayKnapsackProblemInstance.weight(i),
+                        arrayKnapsackProblemInstance.cost(i));
+            }
+            hash = Arrays.hashCode(values);
+        }
+
+        /**
+         * Inserts the next item in input order into the items before it, after every item with a higher or equal
+         * cost-to-weight ratio, the same way {@link SortedItems} sorts them.
+         *
+         * @param ratios The ratios of the items inserted so far.
+         * @param count The number of items inserted so far.
+         * @param index The index of the item.
+         * @param weight The weight of the item.
+         * @param cost The cost of the item.
+         */
+        private void insert(double[] ratios, int count, int index, double weight, double cost) {
+            double ratio = cost / weight;
+            int position = count;
+            while (position > 0 && Double.compare(ratios[position - 1], ratio) < 0) {
+                ratios[position] = ratios[position - 1];
+                System.arraycopy(values, 1 + 3 * (position - 1), values, 1 + 3 * position, 3);
+                position--;
+            }
+            ratios[position] = ratio;
+            values[1 + 3 * position] = index;
+            values[2 + 3 * position] = Double.doubleToLongBits(weight);
+            values[3 + 3 * position] = Double.doubleToLongBits(cost);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other && hash == other.hash && Arrays.equals(values, other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.mobiquity.packer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * The SolveEvent class is the JDK Flight Recorder event of a single solve: the size of the instance, the solver
+ * that was chosen for it and the duration of every phase. By default only solves that take at least a millisecond
+ * are recorded, which keeps an always-on recording small and still catches the pathological lines; the threshold
+ * can be lowered in the recording settings, for example {@code com.mobiquity.Solve#threshold=0 ms}.
+ * <p>
+ * When no recording is running, the event is never committed and the JIT compiler removes it.
+ */
+@Name("com.mobiquity.Solve")
+@Label("Knapsack Solve")
+@Category({"Knapsack", "Solver"})
+@Description("Solving a single test case, from sorting the items to formatting the solution")
+@StackTrace(false)
+@Threshold("1 ms")
+final class SolveEvent extends Event {
+
+    @Label("Solver")
+    @Description("The name of the solver that solved the test case")
+    String solver;
+
+    @Label("Item Count")
+    int itemCount;
+
+    @Label("Candidate Count")
+    @Description("The number of items left for the solver once the items that cannot be in the package are removed")
+    int candidateCount;
+
+    @Label("Capacity")
+    @Description("The maximum weight of the package")
+    int capacity;
+
+    @Label("Scaled Capacity")
+    @Description("The maximum weight of the package in units of 1 / WEIGHT_SCALE_FACTOR")
+    int scaledCapacity;
+
+    @Label("Weight Divisor")
+    @Description("The greatest common divisor of the scaled weights of the candidates, by which the row is shorter")
+    int weightDivisor;
+
+    @Label("Table Cells")
+    @Description("The size of the full dynamic programming table, "
+            + "(candidates + 1) x (scaled capacity / weight divisor + 1), or 0 if the candidates all fit into the package and were not solved for")
+    long tableCells;
+
+    @Label("Sort Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long sortDuration;
+
+    @Label("Select Duration")
+    @Description("The time taken to remove the items that cannot be in the package and to choose among the rest")
+    @Timespan(Timespan.NANOSECONDS)
+    long selectDuration;
+
+    @Label("Format Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long formatDuration;
+}
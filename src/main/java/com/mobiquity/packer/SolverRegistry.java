@@ -0,0 +1,150 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.util.ConfigProperties;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class keeps the available knapsack solvers and picks the one to use for each instance.
+ * The SOLVER_MODE property names the solver to use for every instance, or is AUTO to pick, per instance, the solver
+ * with the lowest {@link KnapsackEngine#estimateOperations(KnapsackProblemInstance) estimated cost}.
+ * Additional solvers can be registered at runtime and take part in the automatic selection.
+ */
+public class SolverRegistry {
+    // The solver mode that selects the cheapest solver per instance
+    public static final String AUTO = "AUTO";
+    private static final String SOLVER_MODE = ConfigProperties.getProperty("SOLVER_MODE", AUTO);
+    // Registered solvers, in registration order, which also breaks ties between equal estimates
+    private static final List<KnapsackEngine> SOLVERS = new CopyOnWriteArrayList<>();
+
+    static {
+        register(new RollingKnapsackSolver());
+        register(new MeetInTheMiddleKnapsackSolver());
+        register(new BranchAndBoundKnapsackSolver());
+        register(new TableKnapsackSolver());
+        register(new HirschbergKnapsackSolver());
+        register(new ParetoKnapsackSolver());
+        register(new VectorKnapsackSolver());
+    }
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private SolverRegistry() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Registers a solver, replacing any solver registered under the same name.
+     *
+     * @param solver The solver to register.
+     */
+    public static synchronized void register(KnapsackEngine solver) {
+        for (int i = 0; i < SOLVERS.size(); i++) {
+            if (SOLVERS.get(i).name().equalsIgnoreCase(solver.name())) {
+                SOLVERS.set(i, solver);
+                return;
+            }
+        }
+        SOLVERS.add(solver);
+    }
+
+    /**
+     * Returns the registered solvers.
+     *
+     * @return An unmodifiable snapshot of the registered solvers, in registration order.
+     */
+    public static List<KnapsackEngine> solvers() {
+        return List.copyOf(SOLVERS);
+    }
+
+    /**
+     * Returns the solver registered under a name.
+     *
+     * @param name The name of the solver, case insensitive.
+     * @return The solver.
+     * @throws IllegalArgumentException If no solver is registered under the name.
+     */
+    public static KnapsackEngine get(String name) {
+        for (KnapsackEngine solver : SOLVERS) {
+            if (solver.name().equalsIgnoreCase(name)) {
+                return solver;
+            }
+        }
+        throw new IllegalArgumentException("Unknown solver: " + name);
+    }
+
+    /**
+     * Returns the solver to use for an instance according to the SOLVER_MODE property.
+     *
+     * @param knapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return The configured solver, or the cheapest one for the instance when the mode is AUTO.
+     */
+    public static KnapsackEngine solverFor(KnapsackProblemInstance knapsackProblemInstance) {
+        return AUTO.equalsIgnoreCase(SOLVER_MODE) ? select(knapsackProblemInstance) : get(SOLVER_MODE);
+    }
+
+    /**
+     * Returns the solver to use for an instance held as arrays according to the SOLVER_MODE property.
+     *
+     * @param arrayKnapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return The configured solver, or the cheapest one for the instance when the mode is AUTO.
+     */
+    public static KnapsackEngine solverFor(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+        return AUTO.equalsIgnoreCase(SOLVER_MODE) ? select(arrayKnapsackProblemInstance) : get(SOLVER_MODE);
+    }
+
+    /**
+     * Picks the registered solver with the lowest estimated cost for an instance.
+     *
+     * @param knapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return The cheapest solver for the instance.
+     * @throws IllegalArgumentException If no registered solver can solve the instance.
+     */
+    public static KnapsackEngine select(KnapsackProblemInstance knapsackProblemInstance) {
+        return select(solver -> solver.estimateOperations(knapsackProblemInstance),
+                knapsackProblemInstance.itemList().size(), knapsackProblemInstance.maxWeight());
+    }
+
+    /**
+     * Picks the registered solver with the lowest estimated cost for an instance held as arrays.
+     *
+     * @param arrayKnapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @return The cheapest solver for the instance, the same as for the instance with a list of items.
+     * @throws IllegalArgumentException If no registered solver can solve the instance.
+     */
+    public static KnapsackEngine select(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance) {
+        return select(solver -> solver.estimateOperations(arrayKnapsackProblemInstance),
+                arrayKnapsackProblemInstance.size(), arrayKnapsackProblemInstance.maxWeight());
+    }
+
+    /**
+     * Picks the registered solver with the lowest estimate.
+     *
+     * @param estimate Estimates the cost of the instance for a solver.
+     * @param itemCount The number of items of the instance, for the error message.
+     * @param maxWeight The maximum weight of the instance, for the error message.
+     * @return The cheapest solver for the instance.
+     * @throws IllegalArgumentException If no registered solver can solve the instance.
+     */
+    private static KnapsackEngine select(ToLongFunction<KnapsackEngine> estimate, int itemCount, int maxWeight) {
+        KnapsackEngine cheapest = null;
+        long cheapestEstimate = Long.MAX_VALUE;
+        for (KnapsackEngine solver : SOLVERS) {
+            long solverEstimate = estimate.applyAsLong(solver);
+            if (solverEstimate < cheapestEstimate) {
+                cheapest = solver;
+                cheapestEstimate = solverEstimate;
+            }
+        }
+        if (cheapest == null) {
+            throw new IllegalArgumentException("No solver can solve an instance with "
+                    + itemCount + " items and maximum weight " + maxWeight);
+        }
+        return cheapest;
+    }
+}
@@ -0,0 +1,232 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.util.ConfigProperties;
+import com.mobiquity.util.FixedPoint;
+import com.mobiquity.validation.ValidationService;
+
+import java.util.Arrays;
+
+/**
+ * The SolverWorkspace class holds the scratch arrays of the solvers, one workspace per thread, so that they are
+ * allocated once per worker thread and reused by every solve on it instead of being allocated and dropped per call.
+ * <p>
+ * Each array has a fixed slot. An array grows when a solve needs more room and then stays that size, up to the size
+ * of the full dynamic programming table of an instance at the standard validation limits (MAX_ITEM_COUNT items and a
+ * MAX_TOTAL_WEIGHT capacity), or in high limit mode of a single row at the high capacity limit. A larger array is
+ * allocated for that solve alone and not kept. The solvers picked automatically never ask for one: the table, rolling
+ * and vector solvers estimate {@link Long#MAX_VALUE} for instances whose table or bitset would be longer, which then go
+ * to the Hirschberg solver. Only a solver named by SOLVER_MODE can allocate on every solve.
+ * <p>
+ * All arrays a workspace keeps take at most {@link #MAX_RETAINED_BYTES} together. A slot that would take the workspace
+ * over it is not grown, and the array it needs is allocated for that solve alone, like one that is too long. At the
+ * standard limits the workspace stays far below it. In high limit mode it is reached: a row at the default capacity
+ * limit of 50000 has 5,000,001 elements, so ROW, PREVIOUS_ROW, ORIGINS and TABLE take 20 MB each and TAKEN_BITS 40 MB,
+ * the meet-in-the-middle solver keeps six long arrays of 2^20 elements and BEST_MASKS, about 52 MB, and the Pareto
+ * solver its frontiers. The memory the packer keeps for its solvers is thus at most 128 MB times the number of solving
+ * threads, SERVER_THREADS for the server or the size of the pool for a parallel pack.
+ * <p>
+ * A solve must not run while another solve on the same thread is still using the workspace.
+ */
+final class SolverWorkspace {
+    // Slots of the int arrays
+    static final int SORTED_INDICES = 0;
+    static final int SORTED_WEIGHTS = 1;
+    static final int SORTED_COSTS = 2;
+    static final int SOLUTION_INDICES = 3;
+    static final int ROW = 4;
+    static final int TABLE = 5;
+    static final int BOUND_ORDER = 6;
+    static final int BEST_MASKS = 7;
+    static final int ORIGINS = 8;
+    static final int FRONTIER_WEIGHTS = 9;
+    static final int FRONTIER_COSTS = 10;
+    static final int NEXT_FRONTIER_WEIGHTS = 11;
+    static final int NEXT_FRONTIER_COSTS = 12;
+    static final int PREVIOUS_ROW = 13;
+    private static final int INT_SLOTS = 14;
+
+    // Slots of the long arrays
+    static final int TAKEN_BITS = 0;
+    static final int LOW_WEIGHTS = 1;
+    static final int LOW_COSTS = 2;
+    static final int LOW_KEYS = 3;
+    static final int SORTED_LOW_WEIGHTS = 4;
+    static final int HIGH_WEIGHTS = 5;
+    static final int HIGH_COSTS = 6;
+    static final int FRONTIER_MASKS = 7;
+    static final int NEXT_FRONTIER_MASKS = 8;
+    private static final int LONG_SLOTS = 9;
+
+    // Slots of the double arrays
+    static final int SORTED_RATIOS = 0;
+    private static final int DOUBLE_SLOTS = 1;
+
+    // Slots of the boolean arrays
+    static final int SELECTED = 0;
+    static final int CURRENT_PACKAGE = 1;
+    static final int REDUNDANT = 2;
+    private static final int BOOLEAN_SLOTS = 3;
+
+    // Longest array kept between solves: the full table of an instance at the standard validation limits,
+    // or in high limit mode a row at the capacity limit if that is longer
+    static final int RETAINED_LENGTH = Math.toIntExact(Math.max((ConfigProperties.getPropertyAsInt("MAX_ITEM_COUNT") + 1L)
+            * (FixedPoint.scaleCapacity(ConfigProperties.getPropertyAsInt("MAX_TOTAL_WEIGHT")) + 1L),
+            FixedPoint.scaleCapacity(ValidationService.MAX_TOTAL_WEIGHT) + 1L));
+
+    // Most bytes the arrays of a workspace take together
+    static final long MAX_RETAINED_BYTES = 2 * AbstractKnapsackSolver.MAX_SCRATCH_BYTES;
+
+    private static final ThreadLocal<SolverWorkspace> CURRENT = ThreadLocal.withInitial(SolverWorkspace::new);
+
+    private final int[][] intArrays = new int[INT_SLOTS][0];
+    private final long[][] longArrays = new long[LONG_SLOTS][0];
+    private final double[][] doubleArrays = new double[DOUBLE_SLOTS][0];
+    private final boolean[][] booleanArrays = new boolean[BOOLEAN_SLOTS][0];
+    // Bytes the arrays above take together
+    private long retainedBytes;
+
+    private SolverWorkspace() {
+    }
+
+    /**
+     * Returns the workspace of the current thread.
+     *
+     * @return The workspace of the current thread.
+     */
+    static SolverWorkspace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the int array of a slot with at least the given length. Its contents are left over from earlier solves.
+     *
+     * @param slot The slot of the array.
+     * @param length The number of elements needed.
+     * @return The int array.
+     */
+    int[] ints(int slot, int length) {
+        if (intArrays[slot].length >= length) {
+            return intArrays[slot];
+        }
+        int retainedLength = retainedLength(intArrays[slot].length, length, Integer.BYTES);
+        if (retainedLength < 0) {
+            return new int[length];
+        }
+        intArrays[slot] = new int[retainedLength];
+        return intArrays[slot];
+    }
+
+    /**
+     * Returns the int array of a slot with at least the given length, with the first {@code length} elements set to 0.
+     *
+     * @param slot The slot of the array.
+     * @param length The number of elements needed.
+     * @return The int array.
+     */
+    int[] clearedInts(int slot, int length) {
+        int[] array = ints(slot, length);
+        Arrays.fill(array, 0, length, 0);
+        return array;
+    }
+
+    /**
+     * Returns the long array of a slot with at least the given length. Its contents are left over from earlier solves.
+     *
+     * @param slot The slot of the array.
+     * @param length The number of elements needed.
+     * @return The long array.
+     */
+    long[] longs(int slot, int length) {
+        if (longArrays[slot].length >= length) {
+            return longArrays[slot];
+        }
+        int retainedLength = retainedLength(longArrays[slot].length, length, Long.BYTES);
+        if (retainedLength < 0) {
+            return new long[length];
+        }
+        longArrays[slot] = new long[retainedLength];
+        return longArrays[slot];
+    }
+
+    /**
+     * Returns the long array of a slot with at least the given length, with the first {@code length} elements set to 0.
+     *
+     * @param slot The slot of the array.
+     * @param length The number of elements needed.
+     * @return The long array.
+     */
+    long[] clearedLongs(int slot, int length) {
+        long[] array = longs(slot, length);
+        Arrays.fill(array, 0, length, 0L);
+        return array;
+    }
+
+    /**
+     * Returns the double array of a slot with at least the given length. Its contents are left over from earlier solves.
+     *
+     * @param slot The slot of the array.
+     * @param length The number of elements needed.
+     * @return The double array.
+     */
+    double[] doubles(int slot, int length) {
+        if (doubleArrays[slot].length >= length) {
+            return doubleArrays[slot];
+        }
+        int retainedLength = retainedLength(doubleArrays[slot].length, length, Double.BYTES);
+        if (retainedLength < 0) {
+            return new double[length];
+        }
+        doubleArrays[slot] = new double[retainedLength];
+        return doubleArrays[slot];
+    }
+
+    /**
+     * Returns the boolean array of a slot with at least the given length, with the first {@code length} elements
+     * set to false.
+     *
+     * @param slot The slot of the array.
+     * @param length The number of elements needed.
+     * @return The boolean array.
+     */
+    boolean[] clearedBooleans(int slot, int length) {
+        if (booleanArrays[slot].length >= length) {
+            boolean[] array = booleanArrays[slot];
+            Arrays.fill(array, 0, length, false);
+            return array;
+        }
+        int retainedLength = retainedLength(booleanArrays[slot].length, length, 1);
+        if (retainedLength < 0) {
+            return new boolean[length];
+        }
+        booleanArrays[slot] = new boolean[retainedLength];
+        return booleanArrays[slot];
+    }
+
+    /**
+     * Computes the length of the array to keep in place of one that is too short, and accounts for its bytes: at least
+     * double the current length, so that instances of slowly increasing size do not reallocate on every solve, but never
+     * more than {@link #RETAINED_LENGTH}, and just the needed length if doubling would take the workspace over
+     * {@link #MAX_RETAINED_BYTES}.
+     *
+     * @param currentLength The length of the current array, which the new one replaces.
+     * @param length The number of elements needed.
+     * @param elementBytes The size of an element in bytes.
+     * @return The new length, or -1 if the needed length is longer than {@link #RETAINED_LENGTH} or would take the
+     *         workspace over {@link #MAX_RETAINED_BYTES}, in which case the current array is kept.
+     */
+    private int retainedLength(int currentLength, int length, int elementBytes) {
+        if (length > RETAINED_LENGTH) {
+            return -1;
+        }
+        long availableBytes = MAX_RETAINED_BYTES - retainedBytes + (long) currentLength * elementBytes;
+        int newLength = (int) Math.min(RETAINED_LENGTH, Math.max(length, 2L * currentLength));
+        if ((long) newLength * elementBytes > availableBytes) {
+            newLength = length;
+        }
+        if ((long) newLength * elementBytes > availableBytes) {
+            return -1;
+        }
+        retainedBytes += ((long) newLength - currentLength) * elementBytes;
+        return newLength;
+    }
+}
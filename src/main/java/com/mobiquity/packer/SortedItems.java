@@ -0,0 +1,201 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.Item;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.util.FixedPoint;
+
+import java.util.List;
+
+/**
+ * The items of a knapsack problem instance sorted on their cost-to-weight ratio, with their weights, costs and the
+ * capacity scaled to fixed-point integers. This is the form every solver works on; the position of an item in this
+ * order is what the tie-breaking between equal packages refers to.
+ * <p>
+ * The items are held as parallel arrays of indices, weights and costs, whichever representation the instance came in.
+ * The arrays come from the {@link SolverWorkspace} of the solving thread and can be longer than the number of items;
+ * only the first {@link #size()} elements belong to this instance.
+ * <p>
+ * Before the solver runs, {@link #removeRedundantItems(SolverWorkspace)} drops the items that cannot be in the optimal
+ * package, keeping the others in the same order, so the solver only sees the candidates, and
+ * {@link #compressWeights()} divides the weights and the capacity by the greatest common divisor of the weights.
+ */
+final class SortedItems {
+    final int[] indices;
+    final int[] weights;
+    final int[] costs;
+    int capacity;
+    private int size;
+    // The cost-to-weight ratio of every item, computed as Item.compareTo computes it
+    private final double[] ratios;
+
+    /**
+     * Sorts a copy of the items of an instance and scales them, leaving the instance untouched.
+     *
+     * @param knapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @param workspace The workspace of the solving thread, which provides the arrays.
+     */
+    SortedItems(KnapsackProblemInstance knapsackProblemInstance, SolverWorkspace workspace) {
+        List<Item> itemList = knapsackProblemInstance.itemList();
+        size = itemList.size();
+        indices = workspace.ints(SolverWorkspace.SORTED_INDICES, size);
+        weights = workspace.ints(SolverWorkspace.SORTED_WEIGHTS, size);
+        costs = workspace.ints(SolverWorkspace.SORTED_COSTS, size);
+        ratios = workspace.doubles(SolverWorkspace.SORTED_RATIOS, size);
+        for (int i = 0; i < size; i++) {
+            Item item = itemList.get(i);
+            insert(i, item.index(), item.scaledWeight(), item.scaledCost(), item.cost() / item.weight());
+        }
+        capacity = FixedPoint.scaleCapacity(knapsackProblemInstance.maxWeight());
+    }
+
+    /**
+     * Sorts a copy of the items of an instance held as arrays, leaving the instance untouched.
+     *
+     * @param arrayKnapsackProblemInstance The instance of the knapsack problem to be solved.
+     * @param workspace The workspace of the solving thread, which provides the arrays.
+     */
+    SortedItems(ArrayKnapsackProblemInstance arrayKnapsackProblemInstance, SolverWorkspace workspace) {
+        size = arrayKnapsackProblemInstance.size();
+        indices = workspace.ints(SolverWorkspace.SORTED_INDICES, size);
+        weights = workspace.ints(SolverWorkspace.SORTED_WEIGHTS, size);
+        costs = workspace.ints(SolverWorkspace.SORTED_COSTS, size);
+        ratios = workspace.doubles(SolverWorkspace.SORTED_RATIOS, size);
+        for (int i = 0; i < size; i++) {
+            // The weight and cost scaled back are the doubles the item was parsed into, so the ratio is the same too
+            insert(i, arrayKnapsackProblemInstance.index(i), arrayKnapsackProblemInstance.scaledWeight(i),
+                    arrayKnapsackProblemInstance.scaledCost(i),
+                    arrayKnapsackProblemInstance.cost(i) / arrayKnapsackProblemInstance.weight(i));
+        }
+        capacity = FixedPoint.scaleCapacity(arrayKnapsackProblemInstance.maxWeight());
+    }
+
+    /**
+     * Inserts the next item in input order into the sorted items before it. Items are moved only past items with a
+     * strictly lower ratio, so equal ratios keep their input order, as the stable sort of {@link Item} objects did.
+     * Instances have few items, so an insertion sort is as fast as any other sort and needs no extra array.
+     *
+     * @param count The number of items sorted so far.
+     * @param index The index of the item.
+     * @param weight The scaled weight of the item.
+     * @param cost The scaled cost of the item.
+     * @param ratio The cost-to-weight ratio of the item.
+     */
+    private void insert(int count, int index, int weight, int cost, double ratio) {
+        int position = count;
+        while (position > 0 && Double.compare(ratios[position - 1], ratio) < 0) {
+            indices[position] = indices[position - 1];
+            weights[position] = weights[position - 1];
+            costs[position] = costs[position - 1];
+            ratios[position] = ratios[position - 1];
+            position--;
+        }
+        indices[position] = index;
+        weights[position] = weight;
+        costs[position] = cost;
+        ratios[position] = ratio;
+    }
+
+    /**
+     * Removes the items that cannot be in the optimal package, which every solver would leave out anyway:
+     * items heavier than the capacity, items without cost, and items that cannot fit into the package together with
+     * all the items that dominate them. An item dominates another if it is no heavier and no cheaper, and, if it weighs
+     * and costs the same, comes first in the sorted order. A package with the dominated item but without one of its
+     * dominators is then never the optimal one: swapping the two gives one at least as costly and as light, and with
+     * equal items one that leaves out the later of them, as the tie-breaking between equal packages does. So unlike in
+     * the unbounded problem, an item dominated by a single lighter one is still kept if both fit together.
+     * <p>
+     * Every item is judged against all items of the instance, removed or not, so the optimal package of the remaining
+     * items is the optimal package of the instance.
+     *
+     * @param workspace The workspace of the solving thread, for scratch arrays.
+     * @return true if the remaining items all fit into the package together, so that they are the optimal package and
+     *         need not be solved for.
+     */
+    boolean removeRedundantItems(SolverWorkspace workspace) {
+        boolean[] redundant = workspace.clearedBooleans(SolverWorkspace.REDUNDANT, size);
+        for (int i = 0; i < size; i++) {
+            redundant[i] = weights[i] > capacity || costs[i] <= 0 || !fitsWithDominators(i);
+        }
+        int count = 0;
+        long totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            if (!redundant[i]) {
+                indices[count] = indices[i];
+                weights[count] = weights[i];
+                costs[count] = costs[i];
+                ratios[count] = ratios[i];
+                totalWeight += weights[i];
+                count++;
+            }
+        }
+        size = count;
+        return totalWeight <= capacity;
+    }
+
+    /**
+     * Divides the weights by their greatest common divisor and the capacity by the same divisor, rounding down.
+     * The weight of every package is a multiple of the divisor, so it fits into the capacity exactly when its divided
+     * weight fits into the divided capacity, and packages keep their order by weight. The solvers then give the same
+     * answers on a row that is shorter by the divisor: with a WEIGHT_SCALE_FACTOR of 100 and whole weights, for example,
+     * a hundred times shorter.
+     *
+     * @return The divisor, 1 if the weights have no common divisor or are all 0.
+     */
+    int compressWeights() {
+        int divisor = 0;
+        for (int i = 0; i < size && divisor != 1; i++) {
+            divisor = greatestCommonDivisor(divisor, weights[i]);
+        }
+        if (divisor <= 1) {
+            return 1;
+        }
+        for (int i = 0; i < size; i++) {
+            weights[i] /= divisor;
+        }
+        capacity /= divisor;
+        return divisor;
+    }
+
+    /**
+     * Computes the greatest common divisor of two non-negative numbers with Euclid's algorithm.
+     *
+     * @param a The first number.
+     * @param b The second number.
+     * @return The greatest common divisor, or the other number if one of them is 0.
+     */
+    private static int greatestCommonDivisor(int a, int b) {
+        while (b != 0) {
+            int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Checks if an item fits into the package together with all the items that dominate it.
+     *
+     * @param item The position of the item.
+     * @return true if the item and all its dominators weigh no more than the capacity.
+     */
+    private boolean fitsWithDominators(int item) {
+        long weight = weights[item];
+        for (int i = 0; i < size && weight <= capacity; i++) {
+            if (i != item && weights[i] <= weights[item] && costs[i] >= costs[item]
+                    && (weights[i] < weights[item] || costs[i] > costs[item] || i < item)) {
+                weight += weights[i];
+            }
+        }
+        return weight <= capacity;
+    }
+
+    /**
+     * Returns the number of items.
+     *
+     * @return The number of items.
+     */
+    int size() {
+        return size;
+    }
+}
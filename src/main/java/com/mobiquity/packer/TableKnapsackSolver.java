@@ -0,0 +1,68 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.metrics.PackerMetrics;
+
+import java.util.Arrays;
+
+/**
+ * The TableKnapsackSolver class solves the knapsack problem with the classic dynamic programming table.
+ * It keeps one row of best costs per item, (items + 1) x (capacity + 1) cells, and backtracks through the table.
+ * Weights and costs are scaled to fixed-point integers, so the table holds exact integers.
+ */
+public class TableKnapsackSolver extends AbstractKnapsackSolver {
+
+    @Override
+    public String name() {
+        return "TABLE";
+    }
+
+    /**
+     * Estimates the cost as one operation per table cell, doubled because every cell is a stored int where
+     * the rolling row keeps a single bit, so the rolling row is always preferred to it.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return Twice the number of table cells, or {@link Long#MAX_VALUE} if the table would take more than
+     *         {@link #MAX_SCRATCH_BYTES} or be longer than the workspace keeps.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        long cells = dynamicProgrammingCells(itemCount + 1, maxWeight);
+        return fitsWorkspace(cells, Integer.BYTES) ? 2 * dynamicProgrammingCells(itemCount, maxWeight) : Long.MAX_VALUE;
+    }
+
+    @Override
+    boolean[] selectItems(SortedItems items, SolverWorkspace workspace) {
+        int capacity = items.capacity;
+        int rowLength = capacity + 1;
+        // Initialize dynamic programming table, row by row in one array; only the first row has to start at 0
+        int[] knapsackSolutionTable = workspace.ints(SolverWorkspace.TABLE, Math.toIntExact((items.size() + 1L) * rowLength));
+        Arrays.fill(knapsackSolutionTable, 0, rowLength, 0);
+        // Fill up dynamic programming table
+        for (int i = 1; i <= items.size(); i++) {
+            int itemWeight = items.weights[i - 1];
+            int itemCost = items.costs[i - 1];
+            int previousRow = (i - 1) * rowLength;
+            int currentRow = i * rowLength;
+            for (int j = 0; j <= capacity; j++) {
+                if (itemWeight > j) {
+                    knapsackSolutionTable[currentRow + j] = knapsackSolutionTable[previousRow + j];
+                } else {
+                    knapsackSolutionTable[currentRow + j] = Math.max(knapsackSolutionTable[previousRow + j], knapsackSolutionTable[previousRow + j - itemWeight] + itemCost);
+                }
+            }
+        }
+        PackerMetrics.recordDynamicProgrammingCells((long) items.size() * rowLength);
+        // Backtrack to find optimal solution, starting from the lightest weight that reaches the highest cost
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, items.size());
+        int j = lightestOptimalCapacity(knapsackSolutionTable, items.size() * rowLength, capacity);
+        for (int i = items.size(); i > 0; i--) {
+            if (knapsackSolutionTable[i * rowLength + j] != knapsackSolutionTable[(i - 1) * rowLength + j]) {
+                selected[i - 1] = true;
+                // Subtract the same scaled weight the table was filled with
+                j -= items.weights[i - 1];
+            }
+        }
+        return selected;
+    }
+}
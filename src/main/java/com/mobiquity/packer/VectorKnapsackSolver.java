@@ -0,0 +1,182 @@
+package com.mobiquity.packer;
+
+import com.mobiquity.metrics.PackerMetrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The VectorKnapsackSolver class solves the knapsack problem with the same rolling row and bitset as
+ * {@link RollingKnapsackSolver}, but fills the row with SIMD instructions through the incubating Vector API.
+ * <p>
+ * Instead of updating a single row in place, which makes each capacity depend on a lower one just written, it
+ * alternates between two rows: every capacity of the new row is the better of the old row at the same capacity and
+ * the old row one item weight lower plus the item cost, so a whole vector of capacities is computed at once with a
+ * lane-wise add and max. Capacities below the item weight, where the item does not fit, are copied over in one block,
+ * so the vector loop has no branch per capacity. The lanes where taking the item was strictly better go into the
+ * bitset, which the backtracking reads as for the rolling row, so the answers are the same.
+ * <p>
+ * The Vector API is only used if the packer was built with the vector Maven profile, which compiles
+ * {@code VectorRowUpdate}, and the JVM is started with {@code --add-modules jdk.incubator.vector}. The row update is
+ * then looked up reflectively, so that this class compiles and loads without the module. Otherwise the solver runs the
+ * same two-row update as plain loops, and is never picked automatically.
+ */
+public class VectorKnapsackSolver extends AbstractKnapsackSolver {
+    private static final String ROW_UPDATE_CLASS = "com.mobiquity.packer.VectorRowUpdate";
+    // VectorRowUpdate.update, or null if the packer was built without it or the JVM was started without the module
+    private static final MethodHandle ROW_UPDATE = findRowUpdate();
+    // Whether the row is filled with the Vector API
+    static final boolean VECTOR_API_AVAILABLE = ROW_UPDATE != null;
+    // The number of capacities VectorRowUpdate updates at a time
+    private static final int LANES = VECTOR_API_AVAILABLE ? findLanes() : 1;
+
+    @Override
+    public String name() {
+        return "VECTOR";
+    }
+
+    /**
+     * Estimates the cost as four operations per vector of capacities for every item, since gathering the lanes where
+     * the item was taken into the bitset costs about as much as the row update itself: with 16 lanes, filling the row
+     * takes about a quarter of the time of the rolling row. One more operation per item covers the copy of the
+     * capacities the item does not fit into.
+     *
+     * @param itemCount The number of items.
+     * @param maxWeight The maximum weight of the package, not scaled.
+     * @return Four times the number of row cells divided by the number of lanes, or {@link Long#MAX_VALUE} if the
+     *         Vector API is not available or the bitset would take more than {@link #MAX_SCRATCH_BYTES} or be longer
+     *         than the workspace keeps.
+     */
+    @Override
+    long estimateOperations(int itemCount, int maxWeight) {
+        long cells = dynamicProgrammingCells(itemCount, maxWeight);
+        if (!VECTOR_API_AVAILABLE || !fitsWorkspace((cells + 63) >>> 6, Long.BYTES)) {
+            return Long.MAX_VALUE;
+        }
+        return 4 * cells / LANES + itemCount;
+    }
+
+    @Override
+    boolean[] selectItems(SortedItems items, SolverWorkspace workspace) {
+        int itemCount = items.size();
+        int capacity = items.capacity;
+        int rowLength = capacity + 1;
+        int[] weights = items.weights;
+        int[] costs = items.costs;
+        // Two rows of best costs, the one without the current item and the one with it, plus the bitset
+        int[] previous = workspace.clearedInts(SolverWorkspace.PREVIOUS_ROW, rowLength);
+        int[] next = workspace.ints(SolverWorkspace.ROW, rowLength);
+        long[] taken = workspace.clearedLongs(SolverWorkspace.TAKEN_BITS, Math.toIntExact(((long) itemCount * rowLength + 63) >>> 6));
+        long cells = 0;
+        for (int i = 0; i < itemCount; i++) {
+            int itemWeight = weights[i];
+            int itemCost = costs[i];
+            long rowOffset = (long) i * rowLength;
+            // The item does not fit into the capacities below its weight
+            System.arraycopy(previous, 0, next, 0, Math.min(itemWeight, rowLength));
+            int j = itemWeight;
+            if (itemWeight <= capacity) {
+                cells += rowLength - itemWeight;
+                if (VECTOR_API_AVAILABLE) {
+                    j = updateRow(previous, next, itemWeight, itemCost, capacity, taken, rowOffset);
+                }
+            }
+            for (; j <= capacity; j++) {
+                int withItem = previous[j - itemWeight] + itemCost;
+                if (withItem > previous[j]) {
+                    next[j] = withItem;
+                    setBits(taken, rowOffset + j, 1L);
+                } else {
+                    next[j] = previous[j];
+                }
+            }
+            int[] swap = previous;
+            previous = next;
+            next = swap;
+        }
+        PackerMetrics.recordDynamicProgrammingCells(cells);
+        // Backtrack to find optimal solution, starting from the lightest weight that reaches the highest cost
+        boolean[] selected = workspace.clearedBooleans(SolverWorkspace.SELECTED, itemCount);
+        int j = lightestOptimalCapacity(previous, 0, capacity);
+        for (int i = itemCount - 1; i >= 0; i--) {
+            long bit = (long) i * rowLength + j;
+            if ((taken[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                selected[i] = true;
+                j -= weights[i];
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Fills the new row with {@code VectorRowUpdate.update}, see there.
+     *
+     * @param previous The row of best costs without the item.
+     * @param next Receives the row of best costs with the item.
+     * @param itemWeight The scaled weight of the item, at most the capacity.
+     * @param itemCost The scaled cost of the item.
+     * @param capacity The scaled capacity.
+     * @param taken The bitset of the cells where the item was taken.
+     * @param rowOffset The position of capacity 0 of this item's row in the bitset.
+     * @return The first capacity that was not updated.
+     */
+    private static int updateRow(int[] previous, int[] next, int itemWeight, int itemCost, int capacity, long[] taken,
+                                 long rowOffset) {
+        try {
+            return (int) ROW_UPDATE.invokeExact(previous, next, itemWeight, itemCost, capacity, taken, rowOffset);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Vector row update failed", e);
+        }
+    }
+
+    /**
+     * Looks up {@code VectorRowUpdate.update} if the Vector API can be used.
+     *
+     * @return The method, or null if the JVM was started without the Vector API module or the packer was built
+     *         without the vector profile.
+     */
+    private static MethodHandle findRowUpdate() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return MethodHandles.lookup().findStatic(Class.forName(ROW_UPDATE_CLASS), "update", MethodType.methodType(
+                    int.class, int[].class, int[].class, int.class, int.class, int.class, long[].class, long.class));
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Vector row update not found", e);
+        }
+    }
+
+    /**
+     * Reads the number of lanes of {@code VectorRowUpdate}, which must be available.
+     *
+     * @return The number of capacities updated at a time.
+     */
+    private static int findLanes() {
+        try {
+            return (int) MethodHandles.lookup().findStaticGetter(Class.forName(ROW_UPDATE_CLASS), "LANES", int.class).invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Vector row update not found", e);
+        }
+    }
+
+    /**
+     * Sets the bits of consecutive cells in the bitset.
+     *
+     * @param taken The bitset.
+     * @param position The position in the bitset of the cell of the lowest bit.
+     * @param bits The bits to set, the lowest one for the cell at the position, at most 64 of them.
+     */
+    static void setBits(long[] taken, long position, long bits) {
+        int word = (int) (position >>> 6);
+        int shift = (int) (position & 63);
+        taken[word] |= bits << shift;
+        // Bits shifted past the end of the word go into the next one
+        if (shift != 0 && bits >>> (Long.SIZE - shift) != 0) {
+            taken[word + 1] |= bits >>> (Long.SIZE - shift);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.mobiquity.packer;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The VectorRowUpdate class adds an item to a dynamic programming row with the incubating Vector API, as many
+ * capacities at a time as the preferred vector shape of the processor holds ints.
+ * <p>
+ * This is the only class that uses the jdk.incubator.vector module, so that the others compile and load without it.
+ * It is only compiled by the vector Maven profile, and {@link VectorKnapsackSolver} calls it reflectively when
+ * {@link VectorKnapsackSolver#VECTOR_API_AVAILABLE} is true.
+ */
+final class VectorRowUpdate {
+    // The preferred shape, unless it has more lanes than an int has bits
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED.length() <= Integer.SIZE
+            ? IntVector.SPECIES_PREFERRED : IntVector.SPECIES_512;
+    // The number of capacities updated at a time
+    static final int LANES = SPECIES.length();
+    // The bit of every lane, to gather a lane mask into an int with a blend and an OR across the lanes, which unlike
+    // VectorMask.toLong is compiled into vector instructions on Java 17
+    private static final IntVector LANE_BITS = IntVector.broadcast(SPECIES, 1)
+            .lanewise(VectorOperators.LSHL, IntVector.zero(SPECIES).addIndex(1));
+    private static final IntVector NO_BITS = IntVector.zero(SPECIES);
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private VectorRowUpdate() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Fills the new row with the better of leaving the item out and taking it, for the capacities from the weight of
+     * the item up to a multiple of the vector length, and records where taking the item was strictly better.
+     * The capacities below the weight of the item, and those left after the last full vector, are up to the caller.
+     *
+     * @param previous The row of best costs without the item.
+     * @param next Receives the row of best costs with the item.
+     * @param itemWeight The scaled weight of the item, at most the capacity.
+     * @param itemCost The scaled cost of the item.
+     * @param capacity The scaled capacity.
+     * @param taken The bitset of the cells where the item was taken.
+     * @param rowOffset The position of capacity 0 of this item's row in the bitset.
+     * @return The first capacity that was not updated.
+     */
+    static int update(int[] previous, int[] next, int itemWeight, int itemCost, int capacity, long[] taken, long rowOffset) {
+        IntVector cost = IntVector.broadcast(SPECIES, itemCost);
+        int end = itemWeight + SPECIES.loopBound(capacity + 1 - itemWeight);
+        int j = itemWeight;
+        for (; j < end; j += LANES) {
+            IntVector withoutItem = IntVector.fromArray(SPECIES, previous, j);
+            IntVector withItem = IntVector.fromArray(SPECIES, previous, j - itemWeight).add(cost);
+            withoutItem.max(withItem).intoArray(next, j);
+            int improved = NO_BITS.blend(LANE_BITS, withItem.compare(VectorOperators.GT, withoutItem))
+                    .reduceLanes(VectorOperators.OR);
+            if (improved != 0) {
+                VectorKnapsackSolver.setBits(taken, rowOffset + j, Integer.toUnsignedLong(improved));
+            }
+        }
+        return j;
+    }
+}
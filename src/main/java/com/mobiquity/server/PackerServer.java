@@ -0,0 +1,175 @@
+package com.mobiquity.server;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.packer.Packer;
+import com.mobiquity.packer.SolutionCache;
+import com.mobiquity.util.ConfigProperties;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The PackerServer class runs the packer as a long-running HTTP service, so that the JIT stays warm and the solution
+ * cache and solver workspaces are reused across requests instead of paying the JVM startup for every batch.
+ * <p>
+ * It serves the following endpoints:
+ * <ul>
+ *     <li>{@code POST /pack} takes one or more test case lines in the input file format as a UTF-8 body and answers
+ *     with one solution per line. If a line is malformed or not valid, it answers 400 with the error message.</li>
+ *     <li>{@code GET /health} answers 200 once the server is accepting requests.</li>
+ *     <li>{@code GET /stats} answers with the solution cache statistics.</li>
+ * </ul>
+ * Requests are handled on a fixed pool of SERVER_THREADS threads, one per processor when it is 0. Solving is
+ * bound by the processor, so more threads than processors would only add contention.
+ */
+public class PackerServer {
+    private static final String TEXT_PLAIN = "text/plain; charset=utf-8";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a server bound to a port, without starting it.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of request threads.
+     * @throws IOException If the port cannot be bound.
+     */
+    private PackerServer(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/pack", this::handlePack);
+        server.createContext("/health", exchange -> handleGet(exchange, "OK\n"));
+        server.createContext("/stats", exchange -> handleGet(exchange, formatStats(Packer.solutionCache().stats())));
+    }
+
+    /**
+     * Starts a server on a port.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @param threads The number of request threads, or 0 for one per processor.
+     * @return The running server.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static PackerServer start(int port, int threads) throws IOException {
+        PackerServer packerServer = new PackerServer(port, threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        packerServer.server.start();
+        return packerServer;
+    }
+
+    /**
+     * Starts a server on the SERVER_PORT port with SERVER_THREADS request threads and runs until the JVM is stopped.
+     *
+     * @param args Not used.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        PackerServer packerServer = start(ConfigProperties.getPropertyAsInt("SERVER_PORT", 80), ConfigProperties.getPropertyAsInt("SERVER_THREADS", 0));
+        Runtime.getRuntime().addShutdownHook(new Thread(packerServer::stop));
+        System.out.println("Packer server listening on port " + packerServer.port());
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The bound port.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, lets the requests being handled finish and releases the request threads.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Packs the test case lines of the request body and sends the solutions.
+     *
+     * @param exchange The request and its response.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handlePack(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "Method not allowed\n");
+                return;
+            }
+            // The solutions are collected first, so that the status can still reflect an error on a later line
+            StringWriter output = new StringWriter();
+            try {
+                Packer.pack(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), output);
+            } catch (APIException e) {
+                send(exchange, 400, e.getMessage() + "\n");
+                return;
+            } catch (RuntimeException e) {
+                send(exchange, 500, "Internal error\n");
+                return;
+            }
+            send(exchange, 200, output.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Answers a GET request with a fixed body.
+     *
+     * @param exchange The request and its response.
+     * @param body The body to send.
+     * @throws IOException If the response cannot be sent.
+     */
+    private static void handleGet(HttpExchange exchange, String body) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "Method not allowed\n");
+                return;
+            }
+            send(exchange, 200, body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Formats the solution cache statistics, one name and value per line.
+     *
+     * @param stats The statistics.
+     * @return The formatted statistics.
+     */
+    private static String formatStats(SolutionCache.Stats stats) {
+        return "cache.hits " + stats.hits() + "\n"
+                + "cache.misses " + stats.misses() + "\n"
+                + "cache.evictions " + stats.evictions() + "\n"
+                + "cache.size " + stats.size() + "\n";
+    }
+
+    /**
+     * Sends a plain text response.
+     *
+     * @param exchange The request and its response.
+     * @param status The HTTP status code.
+     * @param body The body to send.
+     * @throws IOException If the response cannot be sent.
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_PLAIN);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+}
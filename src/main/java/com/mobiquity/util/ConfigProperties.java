@@ -6,6 +6,7 @@ import java.util.Properties;
 
 /**
  * This class is responsible for loading and providing configuration properties.
+ * A system property with the same key, such as {@code -DMAX_TOTAL_WEIGHT=200}, overrides the configuration file.
  */
 public class ConfigProperties {
     private static Properties prop;
@@ -41,6 +42,30 @@ public class ConfigProperties {
      * @return The value of the property as an integer.
      */
     public static int getPropertyAsInt(String key) {
-        return Integer.parseInt(prop.getProperty(key));
+        return Integer.parseInt(System.getProperty(key, prop.getProperty(key)).trim());
+    }
+
+    /**
+     * Gets a property as an integer, falling back to a default when the key is not configured, so that a configuration
+     * file written before the key existed still loads.
+     *
+     * @param key The key of the property.
+     * @param defaultValue The value to return when the property is missing.
+     * @return The value of the property as an integer, or the default value.
+     */
+    public static int getPropertyAsInt(String key, int defaultValue) {
+        String value = System.getProperty(key, prop.getProperty(key));
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Gets a property as a string, falling back to a default when the key is not configured.
+     *
+     * @param key The key of the property.
+     * @param defaultValue The value to return when the property is missing.
+     * @return The value of the property, or the default value.
+     */
+    public static String getProperty(String key, String defaultValue) {
+        return System.getProperty(key, prop.getProperty(key, defaultValue)).trim();
     }
 }
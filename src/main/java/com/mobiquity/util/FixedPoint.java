@@ -0,0 +1,51 @@
+package com.mobiquity.util;
+
+/**
+ * This class converts weights and costs into the fixed-point integers the solvers work with.
+ * A weight of 53.38 with a WEIGHT_SCALE_FACTOR of 100 becomes 5338, so the solvers only ever add and compare integers.
+ */
+public class FixedPoint {
+    // Constants for scaling factors
+    public static final int WEIGHT_SCALE_FACTOR = ConfigProperties.getPropertyAsInt("WEIGHT_SCALE_FACTOR");
+    public static final int COST_SCALE_FACTOR = ConfigProperties.getPropertyAsInt("COST_SCALE_FACTOR");
+
+    /**
+     * Private constructor to prevent instantiation of utility class.
+     */
+    private FixedPoint() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Scales a weight to fixed-point units, rounding to the nearest unit.
+     *
+     * @param weight The weight.
+     * @return The weight in units of 1 / WEIGHT_SCALE_FACTOR.
+     * @throws ArithmeticException If the scaled weight does not fit into an int.
+     */
+    public static int scaleWeight(double weight) {
+        return Math.toIntExact(Math.round(weight * WEIGHT_SCALE_FACTOR));
+    }
+
+    /**
+     * Scales a cost to fixed-point units, rounding to the nearest unit.
+     *
+     * @param cost The cost.
+     * @return The cost in units of 1 / COST_SCALE_FACTOR.
+     * @throws ArithmeticException If the scaled cost does not fit into an int.
+     */
+    public static int scaleCost(double cost) {
+        return Math.toIntExact(Math.round(cost * COST_SCALE_FACTOR));
+    }
+
+    /**
+     * Scales the maximum weight of a package to fixed-point units.
+     *
+     * @param maxWeight The maximum weight of the package.
+     * @return The maximum weight in units of 1 / WEIGHT_SCALE_FACTOR.
+     * @throws ArithmeticException If the scaled weight does not fit into an int.
+     */
+    public static int scaleCapacity(int maxWeight) {
+        return Math.multiplyExact(maxWeight, WEIGHT_SCALE_FACTOR);
+    }
+}
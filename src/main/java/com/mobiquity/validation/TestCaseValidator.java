@@ -0,0 +1,66 @@
+package com.mobiquity.validation;
+
+import com.mobiquity.exception.APIException;
+
+/**
+ * The TestCaseValidator class validates a test case while its items are being read, so that parsing and validation
+ * take a single pass over the line and no item list has to be walked again afterwards.
+ * <p>
+ * The items are fed in one by one with {@link #addItem(double, double)}, which only keeps what the checks need:
+ * the item count, the lightest weight and the first item over a limit. {@link #validate()} then throws the same
+ * exception, for the same test case, as {@link ValidationService#validateKnapsackProblemInstance}: the item count is
+ * checked first, then the maximum weight, then the lightest item, then the weight and cost of the items in order.
+ */
+public final class TestCaseValidator {
+    private int maxWeight;
+    private int itemCount;
+    private double minWeight = Double.POSITIVE_INFINITY;
+    // Weight and cost of the first item that is too heavy or too expensive
+    private boolean itemOverLimit;
+    private double weightOverLimit;
+    private double costOverLimit;
+
+    /**
+     * Records the maximum weight of the package, which a parser reads before the items.
+     *
+     * @param maxWeight The maximum weight of the package.
+     */
+    public void setMaxWeight(int maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Records the next item of the test case.
+     *
+     * @param weight The weight of the item.
+     * @param cost The cost of the item.
+     * @return false if the test case already has more items than allowed or an item over a limit, so the item
+     *         need not be kept because {@link #validate()} is going to fail.
+     */
+    public boolean addItem(double weight, double cost) {
+        itemCount++;
+        if (weight < minWeight) {
+            minWeight = weight;
+        }
+        if (!itemOverLimit && (weight > ValidationService.MAX_ITEM_WEIGHT || cost > ValidationService.MAX_ITEM_COST)) {
+            itemOverLimit = true;
+            weightOverLimit = weight;
+            costOverLimit = cost;
+        }
+        return itemCount <= ValidationService.MAX_ITEM_COUNT && !itemOverLimit;
+    }
+
+    /**
+     * Validates the test case from the items recorded so far.
+     *
+     * @throws APIException If the validation fails, with the exception {@link ValidationService} throws.
+     */
+    public void validate() throws APIException {
+        ValidationService.validateItemCount(itemCount);
+        ValidationService.validateMaxWeight(maxWeight);
+        ValidationService.validateMinimumWeight(itemCount, minWeight, maxWeight);
+        if (itemOverLimit) {
+            ValidationService.validateItemWeightAndCost(weightOverLimit, costOverLimit);
+        }
+    }
+}
@@ -4,20 +4,33 @@ import com.mobiquity.exception.*;
 import com.mobiquity.model.Item;
 import com.mobiquity.model.KnapsackProblemInstance;
 import com.mobiquity.util.ConfigProperties;
+import com.mobiquity.util.FixedPoint;
 
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
  * This class is responsible for validating the knapsack problem instance.
+ * <p>
+ * The limits are read from the MAX_TOTAL_WEIGHT, MAX_ITEM_COUNT, MAX_ITEM_WEIGHT and MAX_ITEM_COST properties.
+ * With HIGH_LIMIT_MODE set to true they are read from the properties of the same names prefixed with HIGH_LIMIT_
+ * instead, which allow far larger packages, by default 500 items, a total and item weight of 50000 and an item cost of
+ * 1000. The solvers are then picked so that no instance needs a full table.
  */
 public class ValidationService {
 
-    private static final int MAX_TOTAL_WEIGHT = ConfigProperties.getPropertyAsInt("MAX_TOTAL_WEIGHT");
-    private static final int MAX_ITEM_COUNT = ConfigProperties.getPropertyAsInt("MAX_ITEM_COUNT");
-    private static final int MAX_ITEM_WEIGHT = ConfigProperties.getPropertyAsInt("MAX_ITEM_WEIGHT");
-    private static final int MAX_ITEM_COST = ConfigProperties.getPropertyAsInt("MAX_ITEM_COST");
+    // Whether the high limits apply instead of the standard ones
+    public static final boolean HIGH_LIMIT_MODE = Boolean.parseBoolean(ConfigProperties.getProperty("HIGH_LIMIT_MODE", "false"));
+    public static final int MAX_TOTAL_WEIGHT = limit("MAX_TOTAL_WEIGHT", 50000);
+    public static final int MAX_ITEM_COUNT = limit("MAX_ITEM_COUNT", 500);
+    static final int MAX_ITEM_WEIGHT = limit("MAX_ITEM_WEIGHT", 50000);
+    static final int MAX_ITEM_COST = limit("MAX_ITEM_COST", 1000);
+
+    static {
+        // The solvers add up scaled costs in ints, so the most valuable valid package must fit into one
+        if ((long) MAX_ITEM_COUNT * FixedPoint.scaleCost(MAX_ITEM_COST) > Integer.MAX_VALUE) {
+            throw new IllegalStateException("MAX_ITEM_COUNT items of MAX_ITEM_COST overflow the scaled cost of a package");
+        }
+    }
 
     /**
      * Private constructor to prevent instantiation of utility class.
@@ -27,22 +40,33 @@ public class ValidationService {
     }
 
     /**
-     * Validates the knapsack problem instance.
+     * Reads a limit from the configuration, from its HIGH_LIMIT_ property in high limit mode.
+     *
+     * @param key The key of the standard limit.
+     * @param highLimitDefault The value of the high limit when its HIGH_LIMIT_ property is not configured.
+     * @return The value of the limit in the current mode.
+     */
+    private static int limit(String key, int highLimitDefault) {
+        return HIGH_LIMIT_MODE
+                ? ConfigProperties.getPropertyAsInt("HIGH_LIMIT_" + key, highLimitDefault)
+                : ConfigProperties.getPropertyAsInt(key);
+    }
+
+    /**
+     * Validates the knapsack problem instance in a single pass over its items, see {@link TestCaseValidator}.
      *
      * @param knapsackProblemInstance The instance of the knapsack problem to be validated.
      * @throws APIException If the validation fails.
      */
     public static void validateKnapsackProblemInstance(KnapsackProblemInstance knapsackProblemInstance) throws APIException {
+        TestCaseValidator validator = new TestCaseValidator();
+        validator.setMaxWeight(knapsackProblemInstance.maxWeight());
         List<Item> items = knapsackProblemInstance.itemList();
-        validateItemCount(items);
-        validateMaxWeight(knapsackProblemInstance.maxWeight());
-        Item minWeightItem = Collections.min(items, Comparator.comparing(Item::weight));
-        if (items.size()> 1 && minWeightItem.weight() > knapsackProblemInstance.maxWeight()) {
-            throw new MinimumWeightHeavierThanTotalWeightException("The minimum weight item is heavier than the total weight limit.");
-        }
-        for (Item item : items) {
-            validateItemWeightAndCost(item);
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            validator.addItem(item.weight(), item.cost());
         }
+        validator.validate();
     }
 
     /**
@@ -64,11 +88,35 @@ public class ValidationService {
      * @throws APIException If the number of items exceeds the limit.
      */
     public static void validateItemCount(List<Item> items) throws APIException {
-        if (items.size() > MAX_ITEM_COUNT) {
+        validateItemCount(items.size());
+    }
+
+    /**
+     * Validates the number of items in the package.
+     *
+     * @param itemCount The number of items in the package.
+     * @throws APIException If the number of items exceeds the limit.
+     */
+    static void validateItemCount(int itemCount) throws APIException {
+        if (itemCount > MAX_ITEM_COUNT) {
             throw new MaxItemCountException("There might be up to "+ MAX_ITEM_COUNT +" items you need to choose from");
         }
     }
 
+    /**
+     * Validates that the lightest item fits into the package, unless it is the only item.
+     *
+     * @param itemCount The number of items in the package.
+     * @param minWeight The weight of the lightest item.
+     * @param maxWeight The maximum weight of the package.
+     * @throws APIException If there are several items and even the lightest one is heavier than the package can take.
+     */
+    static void validateMinimumWeight(int itemCount, double minWeight, int maxWeight) throws APIException {
+        if (itemCount > 1 && minWeight > maxWeight) {
+            throw new MinimumWeightHeavierThanTotalWeightException("The minimum weight item is heavier than the total weight limit.");
+        }
+    }
+
     /**
      * Validates the weight and cost of an item.
      *
@@ -76,10 +124,21 @@ public class ValidationService {
      * @throws APIException If the weight or cost of the item exceeds the limit.
      */
     public static void validateItemWeightAndCost(Item item) throws APIException {
-        if (item.weight() > MAX_ITEM_WEIGHT) {
+        validateItemWeightAndCost(item.weight(), item.cost());
+    }
+
+    /**
+     * Validates the weight and cost of an item.
+     *
+     * @param weight The weight of the item.
+     * @param cost The cost of the item.
+     * @throws APIException If the weight or cost of the item exceeds the limit.
+     */
+    static void validateItemWeightAndCost(double weight, double cost) throws APIException {
+        if (weight > MAX_ITEM_WEIGHT) {
             throw new MaxItemWeightException("The maximum weight of an item should be less than or equal to "+MAX_ITEM_WEIGHT);
         }
-        if (item.cost() > MAX_ITEM_COST){
+        if (cost > MAX_ITEM_COST){
             throw new MaxItemCostException("The maximum cost of an item should be less than or equal to "+MAX_ITEM_COST);
         }
     }
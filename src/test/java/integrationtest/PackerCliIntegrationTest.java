@@ -0,0 +1,73 @@
+package integrationtest;
+
+import com.mobiquity.cli.PackerCli;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Integration tests for the PackerCli class, packing the example input as a pipeline would.
+ */
+class PackerCliIntegrationTest {
+
+    /**
+     * Tests that the example input is packed to the example output, sequentially and in parallel.
+     *
+     * @throws IOException If there is an IO exception when reading the input or expected output files.
+     */
+    @Test
+    void shouldPackStandardInputToStandardOutput() throws IOException {
+        String input = Files.readString(Paths.get("src", "test", "resources", "example_input"), StandardCharsets.UTF_8);
+        String expectedOutput = new String(Files.readAllBytes(Paths.get("src", "test", "resources", "example_output"))).trim();
+
+        for (String[] args : new String[][]{{"--parallelism", "1"}, {"--batch-size", "2", "--parallelism", "4"}}) {
+            StringWriter output = new StringWriter();
+            ByteArrayOutputStream error = new ByteArrayOutputStream();
+
+            int status = PackerCli.run(args, new StringReader(input), output, new PrintStream(error));
+
+            assertEquals(0, status);
+            assertEquals(expectedOutput + "\n", output.toString());
+            assertEquals("", error.toString());
+        }
+    }
+
+    /**
+     * Tests that a malformed line stops the run with status 1, after the solutions of the lines before it.
+     */
+    @Test
+    void shouldReportFailingLineOnStandardError() {
+        StringWriter output = new StringWriter();
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+
+        int status = PackerCli.run(new String[]{"--batch-size", "1"},
+                new StringReader("8 : (1,15.3,€34)\nmalformed\n"), output, new PrintStream(error, true));
+
+        assertEquals(1, status);
+        assertEquals("-\n", output.toString());
+        assertEquals("Malformed line: malformed", error.toString().trim());
+    }
+
+    /**
+     * Tests that invalid arguments exit with status 2 without reading the input.
+     */
+    @Test
+    void shouldRejectInvalidArguments() {
+        StringWriter output = new StringWriter();
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+
+        int status = PackerCli.run(new String[]{"--batch-size", "0"}, new StringReader("8 : (1,15.3,€34)"), output, new PrintStream(error, true));
+
+        assertEquals(2, status);
+        assertEquals("", output.toString());
+    }
+}
@@ -1,14 +1,27 @@
 package integrationtest;
 
 import com.mobiquity.exception.APIException;
+import com.mobiquity.file.BinaryFormat;
 import com.mobiquity.packer.Packer;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Integration tests for the Packer class, ensuring correct packing of items
@@ -40,4 +53,127 @@ class PackerIntegrationTest {
         // Compare the expected and actual output to validate correctness
         assertEquals(expectedOutput, actualOutput);
     }
+
+    /**
+     * Tests the parallel Packer.pack method to ensure it produces the same output,
+     * in the same order, as the sequential one.
+     *
+     * @throws APIException If there is an API exception during packing.
+     * @throws IOException  If there is an IO exception when reading the expected output file.
+     */
+    @Test
+    void shouldPackItemsInInputOrderWhenPackingInParallel() throws APIException, IOException {
+        String inputFilePath = Paths.get("src", "test", "resources", "example_input").toString();
+        String outputFilePath = Paths.get("src", "test", "resources", "example_output").toString();
+        String expectedOutput = new String(Files.readAllBytes(Paths.get(outputFilePath))).trim();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expectedOutput, Packer.pack(inputFilePath, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests the Packer.packBalanced method to ensure it produces the same output, in the same order,
+     * as the sequential Packer.pack, for a file whose lines are split into several tasks.
+     *
+     * @throws APIException If there is an API exception during packing.
+     * @throws IOException  If there is an IO exception when reading or writing the input files.
+     */
+    @Test
+    void shouldPackItemsInInputOrderWhenPackingBalanced() throws APIException, IOException {
+        String input = Files.readString(Paths.get("src", "test", "resources", "example_input"), StandardCharsets.UTF_8);
+        StringJoiner lines = new StringJoiner("\n");
+        for (int i = 0; i < 50; i++) {
+            lines.add(input.trim());
+        }
+        Path inputFile = Files.createTempFile("knapsack-balanced", ".txt");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Files.writeString(inputFile, lines.toString(), StandardCharsets.UTF_8);
+            assertEquals(Packer.pack(inputFile.toString()), Packer.packBalanced(inputFile.toString(), pool));
+
+            Files.writeString(inputFile, lines + "\nmalformed", StandardCharsets.UTF_8);
+            assertThrows(APIException.class, () -> Packer.packBalanced(inputFile.toString(), pool));
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(inputFile);
+        }
+    }
+
+    /**
+     * Tests the streaming Packer.pack method to ensure it writes one solution per line
+     * for the input file.
+     *
+     * @throws APIException If there is an API exception during packing.
+     * @throws IOException  If there is an IO exception when reading the expected output file.
+     */
+    @Test
+    void shouldStreamSolutionsToWriterGivenInputFile() throws APIException, IOException {
+        String inputFilePath = Paths.get("src", "test", "resources", "example_input").toString();
+        String outputFilePath = Paths.get("src", "test", "resources", "example_output").toString();
+        String expectedOutput = new String(Files.readAllBytes(Paths.get(outputFilePath))).trim();
+
+        StringWriter output = new StringWriter();
+        Packer.pack(inputFilePath, output);
+
+        assertEquals(expectedOutput + "\n", output.toString());
+    }
+
+    /**
+     * Tests the parallel streaming Packer.pack method with a window smaller than the number of lines,
+     * ensuring the solutions are written in input order and a malformed line fails after the lines before it.
+     *
+     * @throws APIException If there is an API exception during packing.
+     * @throws IOException  If there is an IO exception when reading the input or expected output files.
+     */
+    @Test
+    void shouldStreamSolutionsInInputOrderWhenPackingInParallel() throws APIException, IOException {
+        String input = Files.readString(Paths.get("src", "test", "resources", "example_input"), StandardCharsets.UTF_8);
+        String expectedOutput = new String(Files.readAllBytes(Paths.get("src", "test", "resources", "example_output"))).trim();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            StringWriter output = new StringWriter();
+            Packer.pack(new StringReader(input), output, executor, 2);
+            assertEquals(expectedOutput + "\n", output.toString());
+
+            StringWriter partialOutput = new StringWriter();
+            assertThrows(APIException.class, () -> Packer.pack(new StringReader(input.trim() + "\nmalformed"), partialOutput, executor, 2));
+            assertEquals(expectedOutput + "\n", partialOutput.toString());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests the binary Packer.packBinary methods to ensure the example input, converted to the binary format,
+     * gives the same solutions from a buffer and from a file as the text format.
+     *
+     * @throws APIException If there is an API exception during converting or packing.
+     * @throws IOException  If there is an IO exception when handling the files.
+     */
+    @Test
+    void shouldPackBinaryTestCasesLikeText() throws APIException, IOException {
+        String inputFilePath = Paths.get("src", "test", "resources", "example_input").toString();
+        String expectedOutput = new String(Files.readAllBytes(Paths.get("src", "test", "resources", "example_output"))).trim();
+        Path binaryFile = Files.createTempFile("example_input", ".bin");
+        try {
+            BinaryFormat.convertTestCases(inputFilePath, binaryFile.toString());
+
+            ByteArrayOutputStream fromBuffer = new ByteArrayOutputStream();
+            Packer.packBinary(ByteBuffer.wrap(Files.readAllBytes(binaryFile)), fromBuffer);
+            ByteArrayOutputStream fromFile = new ByteArrayOutputStream();
+            Packer.packBinary(binaryFile.toString(), fromFile);
+
+            StringJoiner solutions = new StringJoiner("\n");
+            BinaryFormat.forEachSolution(ByteBuffer.wrap(fromBuffer.toByteArray()), solutions::add);
+            assertEquals(expectedOutput, solutions.toString());
+            assertArrayEquals(fromBuffer.toByteArray(), fromFile.toByteArray());
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+    }
 }
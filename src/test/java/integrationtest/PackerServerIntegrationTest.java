@@ -0,0 +1,105 @@
+package integrationtest;
+
+import com.mobiquity.server.PackerServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Integration tests for the PackerServer class, packing test cases over HTTP on a free local port.
+ */
+class PackerServerIntegrationTest {
+
+    private static PackerServer server;
+    private static HttpClient client;
+
+    /**
+     * Starts the server on any free port.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = PackerServer.start(0, 2);
+        client = HttpClient.newHttpClient();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    /**
+     * Tests that posting the example input file returns the example output.
+     *
+     * @throws IOException If there is an IO exception when reading the files or sending the request.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    @Test
+    void shouldPackPostedTestCases() throws IOException, InterruptedException {
+        String input = Files.readString(Paths.get("src", "test", "resources", "example_input"), StandardCharsets.UTF_8);
+        String expectedOutput = new String(Files.readAllBytes(Paths.get("src", "test", "resources", "example_output"))).trim();
+
+        HttpResponse<String> response = post(input);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(expectedOutput + "\n", response.body());
+    }
+
+    /**
+     * Tests that a malformed line is answered with status 400 and the error message.
+     *
+     * @throws IOException If the request cannot be sent.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    @Test
+    void shouldRejectMalformedTestCase() throws IOException, InterruptedException {
+        HttpResponse<String> response = post("81 : (1,53.38,€45) (2,100)");
+
+        assertEquals(400, response.statusCode());
+        assertEquals("Missing currency symbol in item: (2,100)\n", response.body());
+    }
+
+    /**
+     * Tests the health and statistics endpoints.
+     *
+     * @throws IOException If the request cannot be sent.
+     * @throws InterruptedException If the request is interrupted.
+     */
+    @Test
+    void shouldReportHealthAndStats() throws IOException, InterruptedException {
+        HttpResponse<String> health = client.send(HttpRequest.newBuilder(uri("/health")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, health.statusCode());
+        assertEquals("OK\n", health.body());
+
+        HttpResponse<String> stats = client.send(HttpRequest.newBuilder(uri("/stats")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, stats.statusCode());
+        assertTrue(stats.body().contains("cache.hits "), stats.body());
+    }
+
+    private static HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri("/pack"))
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + server.port() + path);
+    }
+}
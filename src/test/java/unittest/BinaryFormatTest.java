@@ -0,0 +1,191 @@
+package unittest;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.exception.MalformedInputException;
+import com.mobiquity.exception.MaxItemWeightException;
+import com.mobiquity.file.BinaryFormat;
+import com.mobiquity.file.FileReader;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
+import com.mobiquity.model.Item;
+import com.mobiquity.model.KnapsackProblemInstance;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The BinaryFormatTest class is responsible for testing the BinaryFormat class.
+ */
+class BinaryFormatTest {
+
+    /**
+     * Tests that a text file converted to the binary format reads back as the same test cases,
+     * from a buffer and from the file.
+     *
+     * @throws IOException If an error occurs while handling the temporary file.
+     * @throws APIException If an error occurs while converting or reading the test cases.
+     */
+    @Test
+    void shouldReadConvertedTestCasesAsParsedFromText() throws IOException, APIException {
+        String textFile = Paths.get("src", "test", "resources", "example_input").toString();
+        Path binaryFile = Files.createTempFile("test", ".bin");
+        try {
+            BinaryFormat.convertTestCases(textFile, binaryFile.toString());
+
+            List<KnapsackProblemInstance> fromBuffer = new ArrayList<>();
+            BinaryFormat.forEachTestCase(ByteBuffer.wrap(Files.readAllBytes(binaryFile)), fromBuffer::add);
+            List<KnapsackProblemInstance> fromFile = new ArrayList<>();
+            BinaryFormat.forEachTestCase(binaryFile.toString(), fromFile::add);
+
+            assertEquals(FileReader.readTestCasesFromFile(textFile), fromBuffer);
+            assertEquals(fromBuffer, fromFile);
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+    }
+
+    /**
+     * Tests that validated array test cases read from the binary format, at the WEIGHT_SCALE_FACTOR and at another
+     * weight scale, are the same as those read from the text file, and that an item over a limit is rejected the same
+     * way as in the text format.
+     *
+     * @throws IOException If an error occurs while handling the temporary file.
+     * @throws APIException If an error occurs while converting or reading the test cases.
+     */
+    @Test
+    void shouldReadValidArrayTestCasesAsParsedFromText() throws IOException, APIException {
+        String textFile = Paths.get("src", "test", "resources", "example_input").toString();
+        List<ArrayKnapsackProblemInstance> fromText = new ArrayList<>();
+        FileReader.forEachValidArrayTestCase(textFile, fromText::add);
+        Path binaryFile = Files.createTempFile("test", ".bin");
+        try {
+            BinaryFormat.convertTestCases(textFile, binaryFile.toString());
+            List<ArrayKnapsackProblemInstance> fromFile = new ArrayList<>();
+            BinaryFormat.forEachValidArrayTestCase(binaryFile.toString(), fromFile::add);
+            assertEquals(fromText, fromFile);
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryFormat.TestCaseWriter writer = new BinaryFormat.TestCaseWriter(output, 1000);
+        for (KnapsackProblemInstance testCase : FileReader.readTestCasesFromFile(textFile)) {
+            writer.write(testCase);
+        }
+        writer.flush();
+        List<ArrayKnapsackProblemInstance> fromBuffer = new ArrayList<>();
+        BinaryFormat.forEachValidArrayTestCase(ByteBuffer.wrap(output.toByteArray()), fromBuffer::add);
+        assertEquals(fromText, fromBuffer);
+
+        ByteArrayOutputStream invalid = new ByteArrayOutputStream();
+        BinaryFormat.TestCaseWriter invalidWriter = new BinaryFormat.TestCaseWriter(invalid, 100);
+        invalidWriter.write(new KnapsackProblemInstance(100, List.of(new Item(1, 50, 5), new Item(2, 101, 5))));
+        invalidWriter.flush();
+        assertThrows(MaxItemWeightException.class,
+                () -> BinaryFormat.forEachValidArrayTestCase(ByteBuffer.wrap(invalid.toByteArray()), t -> { }));
+    }
+
+    /**
+     * Tests that a binary file mapped in regions smaller than the file reads back as the same test cases for every
+     * region size that holds the longest record, so that records cut off at the end of a region are read again from
+     * the next one, and that a record longer than a region, or cut off by the end of the file, is rejected.
+     *
+     * @throws IOException If an error occurs while handling the temporary file.
+     * @throws APIException If an error occurs while converting or reading the test cases.
+     */
+    @Test
+    void shouldReadTestCasesTheSameForEveryRegionSize() throws IOException, APIException {
+        String textFile = Paths.get("src", "test", "resources", "example_input").toString();
+        Path binaryFile = Files.createTempFile("test", ".bin");
+        try {
+            BinaryFormat.convertTestCases(textFile, binaryFile.toString());
+            List<KnapsackProblemInstance> expected = FileReader.readTestCasesFromFile(textFile);
+
+            // Find the longest record from the length prefixes, which follow the 12 byte header
+            ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(binaryFile));
+            int longestRecord = 0;
+            for (int position = 12; position < bytes.limit(); position += Integer.BYTES + bytes.getInt(position)) {
+                longestRecord = Math.max(longestRecord, Integer.BYTES + bytes.getInt(position));
+            }
+
+            for (int regionSize = longestRecord; regionSize <= bytes.limit(); regionSize++) {
+                List<KnapsackProblemInstance> testCases = new ArrayList<>();
+                BinaryFormat.forEachTestCase(binaryFile.toString(), testCases::add, regionSize);
+                assertEquals(expected, testCases, "region size " + regionSize);
+            }
+
+            int shortRegionSize = longestRecord - 1;
+            MalformedInputException exception = assertThrows(MalformedInputException.class,
+                    () -> BinaryFormat.forEachTestCase(binaryFile.toString(), testCase -> { }, shortRegionSize));
+            assertTrue(exception.getMessage().startsWith("Record longer than " + shortRegionSize + " bytes"), exception.getMessage());
+
+            Files.write(binaryFile, Arrays.copyOf(bytes.array(), bytes.limit() - 1));
+            int regionSize = longestRecord;
+            exception = assertThrows(MalformedInputException.class,
+                    () -> BinaryFormat.forEachTestCase(binaryFile.toString(), testCase -> { }, regionSize));
+            assertTrue(exception.getMessage().startsWith("Truncated binary record"), exception.getMessage());
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+    }
+
+    /**
+     * Tests that solutions read back in the text form they were written in, including "-".
+     *
+     * @throws APIException If an error occurs while writing or reading the solutions.
+     */
+    @Test
+    void shouldReadWrittenSolutions() throws APIException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BinaryFormat.SolutionWriter writer = new BinaryFormat.SolutionWriter(output);
+        List<String> solutions = Arrays.asList("4", "-", "2,7", "8,9,10,123");
+        for (String solution : solutions) {
+            writer.write(solution);
+        }
+        writer.flush();
+
+        List<String> read = new ArrayList<>();
+        BinaryFormat.forEachSolution(ByteBuffer.wrap(output.toByteArray()), read::add);
+
+        assertEquals(solutions, read);
+    }
+
+    /**
+     * Tests that weights that cannot be stored exactly, and input that is not a binary test case file, are rejected.
+     *
+     * @throws APIException If an error occurs while writing the header.
+     */
+    @Test
+    void shouldRejectInexactWeightsAndInvalidInput() throws APIException {
+        BinaryFormat.TestCaseWriter writer = new BinaryFormat.TestCaseWriter(new ByteArrayOutputStream(), 100);
+        KnapsackProblemInstance testCase = new KnapsackProblemInstance(10, List.of(new Item(1, 1.234, 5)));
+        MalformedInputException inexact = assertThrows(MalformedInputException.class, () -> writer.write(testCase));
+        assertEquals("Weight cannot be stored at scale 100: 1.234", inexact.getMessage());
+
+        MalformedInputException text = assertThrows(MalformedInputException.class,
+                () -> BinaryFormat.forEachTestCase(ByteBuffer.wrap("81 : (1,53.38,€45)".getBytes()), t -> { }));
+        assertEquals("Not a binary knapsack file", text.getMessage());
+
+        ByteArrayOutputStream solutions = new ByteArrayOutputStream();
+        new BinaryFormat.SolutionWriter(solutions).flush();
+        MalformedInputException wrongType = assertThrows(MalformedInputException.class,
+                () -> BinaryFormat.forEachTestCase(ByteBuffer.wrap(solutions.toByteArray()), t -> { }));
+        assertEquals("Not a binary test case file", wrongType.getMessage());
+
+        ByteArrayOutputStream truncated = new ByteArrayOutputStream();
+        BinaryFormat.TestCaseWriter truncatedWriter = new BinaryFormat.TestCaseWriter(truncated, 100);
+        truncatedWriter.write(new KnapsackProblemInstance(10, List.of(new Item(1, 1.23, 5))));
+        truncatedWriter.flush();
+        byte[] bytes = Arrays.copyOf(truncated.toByteArray(), truncated.size() - 1);
+        assertThrows(MalformedInputException.class, () -> BinaryFormat.forEachTestCase(ByteBuffer.wrap(bytes), t -> { }));
+    }
+}
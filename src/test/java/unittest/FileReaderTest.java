@@ -1,16 +1,24 @@
 package unittest;
 
 import com.mobiquity.exception.MalformedInputException;
+import com.mobiquity.exception.MaxItemCostException;
+import com.mobiquity.exception.MaxItemCountException;
+import com.mobiquity.exception.MaxItemWeightException;
+import com.mobiquity.exception.MaxTotalWeightException;
+import com.mobiquity.exception.MinimumWeightHeavierThanTotalWeightException;
 import com.mobiquity.file.FileReader;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
 import com.mobiquity.model.Item;
 import com.mobiquity.model.KnapsackProblemInstance;
 import com.mobiquity.exception.APIException;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
@@ -51,6 +59,59 @@ public class FileReaderTest {
         assertEquals(3, testCases.get(1).itemList().size());
     }
 
+    /**
+     * Tests the readTestCasesFromFile method with Windows line endings and no line ending after the last line.
+     *
+     * @throws IOException If an error occurs while creating the temporary file.
+     */
+    @Test
+    void shouldReadTestCasesFromFileWithMixedLineEndingsCorrectly() throws IOException, APIException {
+        // Create a temporary file with CRLF, CR and a missing final line ending
+        Path tempFile = Files.createTempFile("test", ".txt");
+        Files.writeString(tempFile, "50 : (1,10.0,€60) (2,20.0,€100)\r\n60 : (1,40.0,€50)\r8 : (1,15.3,€34) (2,7.25,€9)",
+                StandardCharsets.UTF_8);
+
+        // Read test cases from the file
+        List<KnapsackProblemInstance> testCases = FileReader.readTestCasesFromFile(tempFile.toString());
+
+        // Check if the test cases were read correctly
+        assertEquals(3, testCases.size());
+        assertEquals(50, testCases.get(0).maxWeight());
+        assertEquals(2, testCases.get(0).itemList().size());
+        assertEquals(60, testCases.get(1).maxWeight());
+        assertEquals(1, testCases.get(1).itemList().size());
+        assertEquals(List.of(new Item(1, 15.3, 34), new Item(2, 7.25, 9)), testCases.get(2).itemList());
+    }
+
+    /**
+     * Tests the forEachTestCase method when the file is mapped in regions smaller than the file, so that lines are
+     * carried over to the next region and a region can end between the \r and the \n of a line ending.
+     *
+     * @throws IOException If an error occurs while creating the temporary file.
+     */
+    @Test
+    void shouldReadTestCasesTheSameForEveryRegionSize() throws IOException, APIException {
+        // CRLF, CR and LF line endings, and no line ending after the last line
+        String content = "50 : (1,10.0,€60) (2,20.0,€100)\r\n60 : (1,40.0,€50)\r8 : (1,15.3,€34) (2,7.25,€9)\r\n9 : (1,5,€5)";
+        Path tempFile = Files.createTempFile("test", ".txt");
+        Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+        List<KnapsackProblemInstance> expected = FileReader.readTestCasesFromFile(tempFile.toString());
+
+        // Every region from the longest line with its line ending up to the whole file gives the same test cases
+        int longestLine = "50 : (1,10.0,€60) (2,20.0,€100)\r\n".getBytes(StandardCharsets.UTF_8).length;
+        int fileSize = content.getBytes(StandardCharsets.UTF_8).length;
+        for (int regionSize = longestLine; regionSize <= fileSize; regionSize++) {
+            List<KnapsackProblemInstance> testCases = new ArrayList<>();
+            FileReader.forEachTestCase(tempFile.toString(), testCases::add, regionSize);
+            assertEquals(expected, testCases, "region size " + regionSize);
+        }
+
+        // A line that does not fit into a region is rejected
+        APIException exception = assertThrows(APIException.class,
+                () -> FileReader.forEachTestCase(tempFile.toString(), testCase -> { }, 8));
+        assertEquals("Line longer than 8 bytes at offset 0", exception.getMessage());
+    }
+
     /**
      * Tests the readTestCasesFromFile method with an invalid file path.
      */
@@ -112,6 +173,36 @@ public class FileReaderTest {
     }
 
 
+    /**
+     * Tests the parseTestCase method with irregular spacing and decimals of different precision.
+     */
+    @Test
+    void shouldParseTestCaseWithIrregularSpacingCorrectly() throws MalformedInputException {
+        // Create a string with tabs, repeated spaces and weights with different numbers of decimals
+        String data = "  75:(1,85.31,€29)\t(2,14.5,€74)   (3,3,€16) (4,0.125,€55)  ";
+
+        // Parse the test case from the string
+        KnapsackProblemInstance testCase = FileReader.parseTestCase(data);
+
+        // Check if the test case was parsed correctly
+        assertEquals(75, testCase.maxWeight());
+        assertEquals(List.of(new Item(1, 85.31, 29), new Item(2, 14.5, 74), new Item(3, 3, 16), new Item(4, 0.125, 55)),
+                testCase.itemList());
+    }
+
+    /**
+     * Tests that the parseTestCase method reports the malformed part of the line.
+     */
+    @Test
+    void shouldReportMalformedItemWhenParsingTestCase() {
+        // Create a string with an item that has a missing field
+        String data = "50 : (1,10.0,€60) (2,€100)";
+
+        // Try to parse the test case from the string
+        MalformedInputException exception = assertThrows(MalformedInputException.class, () -> FileReader.parseTestCase(data));
+        assertEquals("Malformed item: 2,100", exception.getMessage());
+    }
+
     /**
      * Tests the parseTestCase method with invalid input.
      */
@@ -125,6 +216,53 @@ public class FileReaderTest {
     }
 
 
+    /**
+     * Tests that the parseValidTestCase method throws the same exceptions as validating a parsed test case,
+     * in the same order of precedence.
+     */
+    @Test
+    void shouldValidateTestCaseWhileParsing() {
+        StringBuilder sixteenItems = new StringBuilder("50 :");
+        for (int i = 1; i <= 16; i++) {
+            sixteenItems.append(" (").append(i).append(",10.0,€60)");
+        }
+        // Too many items is reported before the too heavy item and the too large maximum weight
+        assertThrows(MaxItemCountException.class, () -> FileReader.parseValidTestCase(sixteenItems + " (17,200.0,€60)"));
+        assertThrows(MaxItemCountException.class, () -> FileReader.parseValidTestCase("1" + sixteenItems));
+        // A malformed item after the item limit is still reported as malformed
+        assertThrows(MalformedInputException.class, () -> FileReader.parseValidTestCase(sixteenItems + " (17,10.0,60)"));
+        assertThrows(MaxTotalWeightException.class, () -> FileReader.parseValidTestCase("150 : (1,200.0,€60) (2,10.0,€60)"));
+        assertThrows(MinimumWeightHeavierThanTotalWeightException.class, () -> FileReader.parseValidTestCase("5 : (1,20.0,€600) (2,10.0,€60)"));
+        // The first item over a limit decides, and for an item the weight is checked before the cost
+        assertThrows(MaxItemCostException.class, () -> FileReader.parseValidTestCase("50 : (1,20.0,€600) (2,200.0,€60)"));
+        assertThrows(MaxItemWeightException.class, () -> FileReader.parseValidTestCase("50 : (1,200.0,€600) (2,20.0,€60)"));
+        // Lines outside the well-formed shape are validated too
+        assertThrows(MaxItemWeightException.class, () -> FileReader.parseValidTestCase("50 : (1,2e2,€60)"));
+    }
+
+    /**
+     * Tests that the parseValidArrayTestCase method fills the arrays with the scaled items of the line,
+     * and rejects invalid lines with the same exceptions as parseValidTestCase.
+     *
+     * @throws APIException If the valid line is rejected.
+     */
+    @Test
+    void shouldParseValidTestCaseIntoArrays() throws APIException {
+        String line = "81 : (1,53.38,€45) (2,88.62,€98) (3,78.48,€3)";
+
+        ArrayKnapsackProblemInstance testCase = FileReader.parseValidArrayTestCase(line);
+
+        assertEquals(81, testCase.maxWeight());
+        assertEquals(3, testCase.size());
+        assertEquals(2, testCase.index(1));
+        assertEquals(8862, testCase.scaledWeight(1));
+        assertEquals(9800, testCase.scaledCost(1));
+        assertEquals(FileReader.parseTestCase(line), testCase.toKnapsackProblemInstance());
+        assertThrows(MaxItemWeightException.class, () -> FileReader.parseValidArrayTestCase("50 : (1,200.0,€600) (2,20.0,€60)"));
+        assertThrows(MaxItemWeightException.class, () -> FileReader.parseValidArrayTestCase("50 : (1,999999999999999,€60)"));
+        assertThrows(MalformedInputException.class, () -> FileReader.parseValidArrayTestCase("50 : (1,20.0,60)"));
+    }
+
     /**
      * Tests the parseMaxWeight method with valid input.
      */
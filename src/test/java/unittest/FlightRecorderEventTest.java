@@ -0,0 +1,67 @@
+package unittest;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.file.FileReader;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.packer.TableKnapsackSolver;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The FlightRecorderEventTest class is responsible for testing the flight recorder events of parsing and solving.
+ */
+class FlightRecorderEventTest {
+
+    /**
+     * Tests that parsing and solving a line emit events with the size of the instance, the solver and the phases.
+     *
+     * @throws IOException If the recording cannot be written or read.
+     * @throws APIException If the line is not valid.
+     */
+    @Test
+    void shouldRecordParseAndSolveEvents() throws IOException, APIException {
+        Path file = Files.createTempFile("test", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.mobiquity.ParseTestCase").withThreshold(Duration.ZERO);
+            recording.enable("com.mobiquity.Solve").withThreshold(Duration.ZERO);
+            recording.start();
+            KnapsackProblemInstance testCase = FileReader.parseValidTestCase(
+                    "81 : (1,53.38,€45) (2,88.62,€98) (3,78.48,€3) (4,72.30,€76) (5,30.18,€9) (6,46.34,€48)");
+            String solution = new TableKnapsackSolver().solve(testCase);
+            recording.stop();
+            recording.dump(file);
+
+            assertEquals("4", solution);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent parse = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.mobiquity.ParseTestCase")).findFirst().orElseThrow();
+            assertEquals(6, parse.getInt("itemCount"));
+            assertEquals(81, parse.getInt("capacity"));
+            assertTrue(parse.getBoolean("wellFormed"));
+            RecordedEvent solve = events.stream()
+                    .filter(event -> event.getEventType().getName().equals("com.mobiquity.Solve")).findFirst().orElseThrow();
+            assertEquals("TABLE", solve.getString("solver"));
+            assertEquals(6, solve.getInt("itemCount"));
+            // Item 2 is too heavy, and items 1 and 3 cannot fit together with the items that dominate them
+            assertEquals(3, solve.getInt("candidateCount"));
+            assertEquals(8100, solve.getInt("scaledCapacity"));
+            // The weights of items 4, 5 and 6 are all even, so the row is half as long
+            assertEquals(2, solve.getInt("weightDivisor"));
+            assertEquals(4L * 4051, solve.getLong("tableCells"));
+            assertTrue(solve.getDuration("selectDuration").toNanos() > 0);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package unittest;
+
+import com.mobiquity.metrics.Histogram;
+import com.mobiquity.metrics.HistogramSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The HistogramTest class is responsible for testing the Histogram class.
+ */
+class HistogramTest {
+
+    /**
+     * Tests that the count, sum and maximum are exact and that percentiles are the upper bound of their bucket.
+     */
+    @Test
+    void shouldEstimatePercentilesFromPowerOfTwoBuckets() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(5000);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(90 * 100 + 9 * 1000 + 5000, snapshot.getSum());
+        assertEquals(5000, snapshot.getMax());
+        assertEquals(230.0, snapshot.getMean());
+        // 100 falls into the bucket from 64 to 127, 1000 into the one from 512 to 1023
+        assertEquals(127, snapshot.getP50());
+        assertEquals(127, snapshot.getP90());
+        assertEquals(1023, snapshot.getP99());
+    }
+
+    /**
+     * Tests that an empty or reset histogram reports zeros, and that negative values are recorded as 0.
+     */
+    @Test
+    void shouldReportZerosWhenEmptyOrReset() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.snapshot().getP99());
+        assertEquals(0.0, histogram.snapshot().getMean());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getMax());
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.snapshot().getP99());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getMax());
+    }
+}
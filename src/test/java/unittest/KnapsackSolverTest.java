@@ -1,14 +1,23 @@
 package unittest;
 
 import com.mobiquity.exception.*;
+import com.mobiquity.file.FileReader;
+import com.mobiquity.model.ArrayKnapsackProblemInstance;
 import com.mobiquity.model.Item;
 import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.packer.BranchAndBoundKnapsackSolver;
+import com.mobiquity.packer.KnapsackEngine;
 import com.mobiquity.packer.KnapsackSolver;
+import com.mobiquity.packer.MeetInTheMiddleKnapsackSolver;
+import com.mobiquity.packer.RollingKnapsackSolver;
+import com.mobiquity.packer.SolverRegistry;
+import com.mobiquity.packer.TableKnapsackSolver;
 import com.mobiquity.util.ConfigProperties;
 import com.mobiquity.validation.ValidationService;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -20,6 +29,18 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
  */
 class KnapsackSolverTest {
 
+    // Lines every solver must answer the same way as the full table solver, including ties in cost and weight
+    private static final List<String> COMPARISON_LINES = Arrays.asList(
+            "81 : (1,53.38,€45) (2,88.62,€98) (3,78.48,€3) (4,72.30,€76) (5,30.18,€9) (6,46.34,€48)",
+            "75 : (1,85.31,€29) (2,14.55,€74) (3,3.98,€16) (4,26.24,€55) (5,63.69,€52) (6,76.25,€75) (7,60.02,€74) (8,93.18,€35) (9,89.95,€78)",
+            "56 : (1,90.72,€13) (2,33.80,€40) (3,43.15,€10) (4,37.97,€16) (5,46.81,€36) (6,48.77,€79) (7,81.80,€45) (8,19.36,€79) (9,6.76,€64)",
+            "50 : (1,50.0,€60) (2,49.0,€60) (3,48.0,€60)",
+            "40 : (1,10.0,€20) (2,10.0,€20) (3,20.0,€40) (4,20.0,€40) (5,5.5,€11)",
+            "10 : (1,10.0,€20) (2,4.0,€7) (3,4.0,€13)",
+            "30 : (1,0,€5) (2,10,€10) (3,20,€20) (4,0,€0) (5,30,€35)",
+            "100 : (1,12.5,€30) (2,7.5,€18) (3,20,€48) (4,30,€72) (5,5,€12) (6,25,€60) (7,15,€36) (8,10,€24) (9,35,€84) (10,40,€96) (11,2.5,€6) (12,45,€99) (13,50,€100) (14,1,€2) (15,3,€7)"
+    );
+
     private static int MAX_TOTAL_WEIGHT;
     private static int MAX_ITEM_COUNT;
     private static int MAX_ITEM_WEIGHT;
@@ -72,6 +93,25 @@ class KnapsackSolverTest {
         assertEquals("3", result);
     }
 
+    /**
+     * Tests the solveKnapsackProblem method when a lighter combination of items has the same price as a heavier item
+     * with a better cost-to-weight ratio than one of them. It should still prefer the lighter package.
+     */
+    @Test
+    void shouldPreferLighterCombinationWhenItHasSamePriceAsHeavierItem() {
+        // Test setup
+        List<Item> items = Arrays.asList(
+                new Item(1, 10.0, 20),
+                new Item(2, 4.0, 7),
+                new Item(3, 4.0, 13)
+        );
+        // Test execution and verification
+        assertEquals("2,3", new TableKnapsackSolver().solve(new KnapsackProblemInstance(10, items)));
+        assertEquals("2,3", new RollingKnapsackSolver().solve(new KnapsackProblemInstance(10, items)));
+        assertEquals("2,3", new MeetInTheMiddleKnapsackSolver().solve(new KnapsackProblemInstance(10, items)));
+        assertEquals("2,3", new BranchAndBoundKnapsackSolver().solve(new KnapsackProblemInstance(10, items)));
+    }
+
     /**
      * Tests the solveKnapsackProblem method when there is only one item.
      */
@@ -114,6 +154,106 @@ class KnapsackSolverTest {
         assertEquals("2,3", result);
     }
 
+    /**
+     * Tests that every registered solver gives the same answers as the full table solver, tie-breaking included.
+     */
+    @Test
+    void shouldSolveSameWithEverySolverAsWithFullTable() throws MalformedInputException {
+        // Test execution and verification
+        for (String line : COMPARISON_LINES) {
+            String expected = new TableKnapsackSolver().solve(FileReader.parseTestCase(line));
+            for (KnapsackEngine solver : SolverRegistry.solvers()) {
+                assertEquals(expected, solver.solve(FileReader.parseTestCase(line)), solver.name() + ": " + line);
+            }
+        }
+    }
+
+    /**
+     * Tests that every solver keeps a dominated item that fits into the package together with the item dominating it,
+     * and of equal items takes the first ones.
+     *
+     * @throws MalformedInputException If a line is not well formed.
+     */
+    @Test
+    void shouldOnlyLeaveOutDominatedItemsThatCannotFitWithTheirDominators() throws MalformedInputException {
+        for (KnapsackEngine solver : SolverRegistry.solvers()) {
+            assertEquals("1,2", solver.solve(FileReader.parseTestCase("10 : (1,5,€5) (2,5,€6) (3,11,€90)")), solver.name());
+            assertEquals("1,2", solver.solve(FileReader.parseTestCase("10 : (1,5,€10) (2,5,€10) (3,5,€10)")), solver.name());
+            assertEquals("2,3", solver.solve(FileReader.parseTestCase("10 : (1,6,€10) (2,5,€10) (3,5,€10) (4,1,€0)")), solver.name());
+        }
+    }
+
+    /**
+     * Tests that every solver gives the same answers when its scratch arrays are reused by instances of other sizes,
+     * by solving the comparison lines forwards and then backwards on the same thread.
+     */
+    @Test
+    void shouldSolveSameWhenScratchArraysAreReused() throws MalformedInputException {
+        for (KnapsackEngine solver : SolverRegistry.solvers()) {
+            String[] forwards = new String[COMPARISON_LINES.size()];
+            for (int i = 0; i < COMPARISON_LINES.size(); i++) {
+                forwards[i] = solver.solve(FileReader.parseTestCase(COMPARISON_LINES.get(i)));
+            }
+            for (int i = COMPARISON_LINES.size() - 1; i >= 0; i--) {
+                assertEquals(forwards[i], solver.solve(FileReader.parseTestCase(COMPARISON_LINES.get(i))), solver.name());
+            }
+        }
+    }
+
+    /**
+     * Tests that every solver gives the same answers for an instance parsed into arrays as for the instance parsed
+     * into a list of items, including for weights whose cost-to-weight ratios tie only up to rounding.
+     *
+     * @throws APIException If a comparison line is not valid.
+     */
+    @Test
+    void shouldSolveSameForArrayInstances() throws APIException {
+        List<String> lines = new ArrayList<>(COMPARISON_LINES);
+        lines.add("1 : (1,0.3,€3) (2,0.1,€1) (3,0.1,€1) (4,0.1,€1)");
+        for (KnapsackEngine solver : SolverRegistry.solvers()) {
+            for (String line : lines) {
+                ArrayKnapsackProblemInstance arrays = FileReader.parseValidArrayTestCase(line);
+                assertEquals(solver.solve(FileReader.parseTestCase(line)), solver.solve(arrays), solver.name() + " " + line);
+            }
+        }
+    }
+
+    /**
+     * Tests that the registry picks branch and bound for very few items, meet in the middle for a dozen items and
+     * a large capacity, the rolling row for many items and a small capacity, or the vector solver if the Vector API
+     * is available, and divide and conquer for a package too large for the bitset of the rolling row.
+     */
+    @Test
+    void shouldSelectCheapestSolverForInstance() {
+        // Test setup
+        Item[] items = new Item[40];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new Item(i + 1, 1 + i % 7, 10 + i % 5);
+        }
+        // Test execution and verification
+        assertEquals("BRANCH_AND_BOUND", SolverRegistry.select(new KnapsackProblemInstance(100, Arrays.asList(items).subList(0, 3))).name());
+        assertEquals("MEET_IN_THE_MIDDLE", SolverRegistry.select(new KnapsackProblemInstance(100, Arrays.asList(items).subList(0, 12))).name());
+        String rowSolver = isVectorApiAvailable() ? "VECTOR" : "ROLLING";
+        assertEquals(rowSolver, SolverRegistry.select(new KnapsackProblemInstance(1, Arrays.asList(items))).name());
+        List<Item> manyItems = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            manyItems.add(new Item(i + 1, 1 + i % 97, 10 + i % 5));
+        }
+        assertEquals("HIRSCHBERG", SolverRegistry.select(new KnapsackProblemInstance(50000, manyItems)).name());
+        assertEquals("TABLE", SolverRegistry.get("table").name());
+    }
+
+    /**
+     * Checks if the vector solver can use the Vector API: the JVM was started with its module and the packer was built
+     * with the vector profile.
+     *
+     * @return true if the Vector API is available to the vector solver.
+     */
+    private static boolean isVectorApiAvailable() {
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                && KnapsackSolverTest.class.getClassLoader().getResource("com/mobiquity/packer/VectorRowUpdate.class") != null;
+    }
+
     /**
      * Tests the validateKnapsackProblemInstance method when the minimum weight item is heavier than the total weight.
      */
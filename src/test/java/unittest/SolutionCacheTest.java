@@ -0,0 +1,140 @@
+package unittest;
+
+import com.mobiquity.exception.APIException;
+import com.mobiquity.exception.MaxItemWeightException;
+import com.mobiquity.model.Item;
+import com.mobiquity.model.KnapsackProblemInstance;
+import com.mobiquity.packer.SolutionCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The SolutionCacheTest class is responsible for testing the SolutionCache class.
+ */
+class SolutionCacheTest {
+
+    private static final KnapsackProblemInstance FIRST = new KnapsackProblemInstance(10,
+            List.of(new Item(1, 5.0, 10), new Item(2, 4.0, 7)));
+    private static final KnapsackProblemInstance SECOND = new KnapsackProblemInstance(10,
+            List.of(new Item(1, 5.0, 10), new Item(2, 4.0, 8)));
+    private static final KnapsackProblemInstance THIRD = new KnapsackProblemInstance(20,
+            List.of(new Item(1, 5.0, 10), new Item(2, 4.0, 7)));
+
+    /**
+     * Tests that a repeated test case is answered from the cache, also with its items in another order, and that
+     * instances differing in maximum weight or in the order of items of equal cost-to-weight ratio are separate entries.
+     */
+    @Test
+    void shouldAnswerRepeatedTestCaseFromCache() throws APIException {
+        SolutionCache cache = new SolutionCache(10);
+        AtomicInteger loads = new AtomicInteger();
+        SolutionCache.Loader<KnapsackProblemInstance> loader = instance -> "solution " + loads.incrementAndGet();
+
+        assertEquals("solution 1", cache.computeIfAbsent(FIRST, loader));
+        assertEquals("solution 1", cache.computeIfAbsent(new KnapsackProblemInstance(10,
+                List.of(new Item(1, 5.0, 10), new Item(2, 4.0, 7))), loader));
+        assertEquals("solution 1", cache.computeIfAbsent(new KnapsackProblemInstance(10,
+                List.of(new Item(2, 4.0, 7), new Item(1, 5.0, 10))), loader));
+        assertEquals("solution 2", cache.computeIfAbsent(SECOND, loader));
+        // Both items of the second test case have a ratio of 2, so their order decides between equal packages
+        assertEquals("solution 3", cache.computeIfAbsent(new KnapsackProblemInstance(10,
+                List.of(new Item(2, 4.0, 8), new Item(1, 5.0, 10))), loader));
+        assertEquals("solution 4", cache.computeIfAbsent(THIRD, loader));
+
+        assertEquals(new SolutionCache.Stats(2, 4, 0, 4), cache.stats());
+        assertEquals(2.0 / 6, cache.stats().hitRate());
+    }
+
+    /**
+     * Tests that a solution not used since it was cached is evicted before one that has been used when the cache is full.
+     */
+    @Test
+    void shouldEvictLeastRecentlyUsedSolution() throws APIException {
+        SolutionCache cache = new SolutionCache(2);
+        AtomicInteger loads = new AtomicInteger();
+        SolutionCache.Loader<KnapsackProblemInstance> loader = instance -> "solution " + loads.incrementAndGet();
+
+        cache.computeIfAbsent(FIRST, loader);
+        cache.computeIfAbsent(SECOND, loader);
+        // Using the first solution again makes the second one the least recently used
+        cache.computeIfAbsent(FIRST, loader);
+        cache.computeIfAbsent(THIRD, loader);
+
+        assertEquals("solution 1", cache.computeIfAbsent(FIRST, loader));
+        assertEquals("solution 4", cache.computeIfAbsent(SECOND, loader));
+        assertEquals(2, cache.stats().evictions());
+        assertEquals(2, cache.stats().size());
+    }
+
+    /**
+     * Tests that failures are not cached and that a cache of size 0 always solves the test case.
+     */
+    @Test
+    void shouldNotCacheFailuresOrWhenDisabled() throws APIException {
+        SolutionCache cache = new SolutionCache(10);
+        AtomicInteger failures = new AtomicInteger();
+        SolutionCache.Loader<KnapsackProblemInstance> failingLoader = instance -> {
+            failures.incrementAndGet();
+            throw new MaxItemWeightException("too heavy");
+        };
+        assertThrows(MaxItemWeightException.class, () -> cache.computeIfAbsent(FIRST, failingLoader));
+        assertThrows(MaxItemWeightException.class, () -> cache.computeIfAbsent(FIRST, failingLoader));
+        assertEquals(2, failures.get());
+        assertEquals(0, cache.stats().size());
+
+        SolutionCache disabled = new SolutionCache(0);
+        AtomicInteger loads = new AtomicInteger();
+        SolutionCache.Loader<KnapsackProblemInstance> loader = instance -> "solution " + loads.incrementAndGet();
+        disabled.computeIfAbsent(FIRST, loader);
+        assertEquals("solution 2", disabled.computeIfAbsent(FIRST, loader));
+        assertEquals(0, disabled.stats().hits());
+    }
+
+    /**
+     * Tests that threads looking up and adding solutions at the same time get the solution of their own test case
+     * and never leave the cache over its maximum size.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting for the threads.
+     * @throws ExecutionException If a lookup fails.
+     */
+    @Test
+    void shouldStayWithinMaximumSizeUnderConcurrentUse() throws InterruptedException, ExecutionException {
+        SolutionCache cache = new SolutionCache(16);
+        SolutionCache.Loader<KnapsackProblemInstance> loader = instance -> "solution " + instance.maxWeight();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                lookups.add(executor.submit(() -> {
+                    for (int i = 0; i < 10000; i++) {
+                        int maxWeight = i % 64;
+                        KnapsackProblemInstance testCase = new KnapsackProblemInstance(maxWeight, FIRST.itemList());
+                        assertEquals("solution " + maxWeight, cache.computeIfAbsent(testCase, loader));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        SolutionCache.Stats stats = cache.stats();
+        assertEquals(40000, stats.hits() + stats.misses());
+        assertEquals(16, stats.size());
+        // Threads that miss on the same key at the same time add a single entry between them
+        assertTrue(stats.evictions() <= stats.misses() - 16);
+    }
+}